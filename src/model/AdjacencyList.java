@@ -0,0 +1,268 @@
+package model;
+
+import java.util.AbstractSet;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+/**
+ * Edges of a single node, partitioned by relationship type.
+ * Only edges with a canonical relationship type are stored; the edges of the inverse
+ * relationship types are derived from them on the fly. Typed lookups return a cached
+ * read-only view of one bucket without filtering or copying.
+ *
+ * @author uuifx
+ */
+class AdjacencyList {
+    private static final RelationshipTypes[] RELATIONSHIPS = RelationshipTypes.values();
+
+    private final Map<RelationshipTypes, Set<Edge>> outgoingBuckets = new EnumMap<>(RelationshipTypes.class);
+    private final Map<RelationshipTypes, Set<Edge>> incomingBuckets = new EnumMap<>(RelationshipTypes.class);
+    private final Map<RelationshipTypes, Set<Edge>> outgoingViews = new EnumMap<>(RelationshipTypes.class);
+    private final Map<RelationshipTypes, Set<Edge>> incomingViews = new EnumMap<>(RelationshipTypes.class);
+    private final Set<Edge> allOutgoing = new AllEdgesView(outgoingViews);
+    private final Set<Edge> allIncoming = new AllEdgesView(incomingViews);
+    private int size;
+
+    /**
+     * Adds a canonical edge that starts at this node.
+     *
+     * @param edge The canonical edge to add
+     * @return true if the edge was added, false if it was already present
+     */
+    boolean addOutgoing(Edge edge) {
+        Set<Edge> bucket = outgoingBuckets.get(edge.getRelationship());
+        if (bucket == null) {
+            bucket = new HashSet<>();
+            outgoingBuckets.put(edge.getRelationship(), bucket);
+            outgoingViews.put(edge.getRelationship(), Collections.unmodifiableSet(bucket));
+            incomingViews.put(edge.getRelationship().getInverse(), new InverseEdgesView(bucket));
+        }
+        return added(bucket.add(edge));
+    }
+
+    /**
+     * Adds a canonical edge that ends at this node.
+     *
+     * @param edge The canonical edge to add
+     * @return true if the edge was added, false if it was already present
+     */
+    boolean addIncoming(Edge edge) {
+        Set<Edge> bucket = incomingBuckets.get(edge.getRelationship());
+        if (bucket == null) {
+            bucket = new HashSet<>();
+            incomingBuckets.put(edge.getRelationship(), bucket);
+            incomingViews.put(edge.getRelationship(), Collections.unmodifiableSet(bucket));
+            outgoingViews.put(edge.getRelationship().getInverse(), new InverseEdgesView(bucket));
+        }
+        return added(bucket.add(edge));
+    }
+
+    /**
+     * Removes a canonical edge that starts at this node.
+     *
+     * @param edge The canonical edge to remove
+     * @return true if the edge was removed, false if it was not present
+     */
+    boolean removeOutgoing(Edge edge) {
+        Set<Edge> bucket = outgoingBuckets.get(edge.getRelationship());
+        return removed(bucket != null && bucket.remove(edge));
+    }
+
+    /**
+     * Removes a canonical edge that ends at this node.
+     *
+     * @param edge The canonical edge to remove
+     * @return true if the edge was removed, false if it was not present
+     */
+    boolean removeIncoming(Edge edge) {
+        Set<Edge> bucket = incomingBuckets.get(edge.getRelationship());
+        return removed(bucket != null && bucket.remove(edge));
+    }
+
+    /**
+     * Gets a read-only view of the outgoing edges with the given relationship type.
+     *
+     * @param relationship The relationship type
+     * @return The edges of that type, or an empty set if there are none
+     */
+    Set<Edge> outgoing(RelationshipTypes relationship) {
+        Set<Edge> view = outgoingViews.get(relationship);
+        return view == null ? Collections.<Edge>emptySet() : view;
+    }
+
+    /**
+     * Gets a read-only view of the incoming edges with the given relationship type.
+     *
+     * @param relationship The relationship type
+     * @return The edges of that type, or an empty set if there are none
+     */
+    Set<Edge> incoming(RelationshipTypes relationship) {
+        Set<Edge> view = incomingViews.get(relationship);
+        return view == null ? Collections.<Edge>emptySet() : view;
+    }
+
+    /**
+     * Gets a read-only view of all outgoing edges regardless of their relationship type.
+     *
+     * @return All outgoing edges of this node
+     */
+    Set<Edge> allOutgoing() {
+        return allOutgoing;
+    }
+
+    /**
+     * Gets a read-only view of all incoming edges regardless of their relationship type.
+     *
+     * @return All incoming edges of this node
+     */
+    Set<Edge> allIncoming() {
+        return allIncoming;
+    }
+
+    /**
+     * Gets the stored canonical edges of this node, in both directions.
+     * A canonical edge from this node to itself is contained only once.
+     *
+     * @return A new set of the canonical edges
+     */
+    Set<Edge> canonicalEdges() {
+        Set<Edge> result = new HashSet<>();
+        for (Set<Edge> bucket : outgoingBuckets.values()) {
+            result.addAll(bucket);
+        }
+        for (Set<Edge> bucket : incomingBuckets.values()) {
+            result.addAll(bucket);
+        }
+        return result;
+    }
+
+    /**
+     * Checks if this node has no edges.
+     *
+     * @return true if there are no edges, false otherwise
+     */
+    boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * Updates the edge count after an add operation.
+     *
+     * @param changed Whether the add operation changed a bucket
+     * @return The given change flag
+     */
+    private boolean added(boolean changed) {
+        if (changed) {
+            size++;
+        }
+        return changed;
+    }
+
+    /**
+     * Updates the edge count after a remove operation.
+     *
+     * @param changed Whether the remove operation changed a bucket
+     * @return The given change flag
+     */
+    private boolean removed(boolean changed) {
+        if (changed) {
+            size--;
+        }
+        return changed;
+    }
+
+    /**
+     * Read-only view over all relationship views of one direction, in relationship type order.
+     */
+    private final class AllEdgesView extends AbstractSet<Edge> {
+        private final Map<RelationshipTypes, Set<Edge>> relationshipViews;
+
+        AllEdgesView(Map<RelationshipTypes, Set<Edge>> relationshipViews) {
+            this.relationshipViews = relationshipViews;
+        }
+
+        @Override
+        public Iterator<Edge> iterator() {
+            return new Iterator<Edge>() {
+                private int nextBucket = 0;
+                private Iterator<Edge> current = Collections.emptyIterator();
+
+                @Override
+                public boolean hasNext() {
+                    while (!current.hasNext() && nextBucket < RELATIONSHIPS.length) {
+                        Set<Edge> view = relationshipViews.get(RELATIONSHIPS[nextBucket++]);
+                        if (view != null) {
+                            current = view.iterator();
+                        }
+                    }
+                    return current.hasNext();
+                }
+
+                @Override
+                public Edge next() {
+                    if (!hasNext()) {
+                        throw new NoSuchElementException();
+                    }
+                    return current.next();
+                }
+            };
+        }
+
+        @Override
+        public boolean contains(Object obj) {
+            if (!(obj instanceof Edge)) {
+                return false;
+            }
+            Set<Edge> view = relationshipViews.get(((Edge) obj).getRelationship());
+            return view != null && view.contains(obj);
+        }
+
+        @Override
+        public int size() {
+            // Every stored canonical edge appears exactly once per direction, either as itself or inverted
+            return size;
+        }
+    }
+
+    /**
+     * Read-only view that presents the edges of a bucket as their inverse edges.
+     */
+    private static final class InverseEdgesView extends AbstractSet<Edge> {
+        private final Set<Edge> bucket;
+
+        InverseEdgesView(Set<Edge> bucket) {
+            this.bucket = bucket;
+        }
+
+        @Override
+        public Iterator<Edge> iterator() {
+            final Iterator<Edge> iterator = bucket.iterator();
+            return new Iterator<Edge>() {
+                @Override
+                public boolean hasNext() {
+                    return iterator.hasNext();
+                }
+
+                @Override
+                public Edge next() {
+                    return iterator.next().createInverse();
+                }
+            };
+        }
+
+        @Override
+        public boolean contains(Object obj) {
+            return obj instanceof Edge && bucket.contains(((Edge) obj).createInverse());
+        }
+
+        @Override
+        public int size() {
+            return bucket.size();
+        }
+    }
+}
\ No newline at end of file
@@ -0,0 +1,153 @@
+package model;
+
+import util.CompressedBitmap;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Index of the products in the subtrees of the category hierarchy.
+ * The subtree of a category consists of the category and all categories it directly or indirectly contains,
+ * so its products are the members of any of these categories. The categories of each subtree are
+ * kept along with its products, since results computed from a subtree depend on all of them.
+ * Subtrees are computed on the first query and kept until a contains edge of the category or of one
+ * of its descendants changes, which invalidates the subtrees of the changed category and all its ancestors.
+ * The index is synchronized, since subtrees are added by queries that may run in parallel.
+ *
+ * @author uuifx
+ */
+class CategoryIndex {
+    private final Graph graph;
+    private final Map<Integer, Subtree> subtrees = new HashMap<>();
+
+    /**
+     * Creates a new index.
+     *
+     * @param graph The graph whose category hierarchy is indexed
+     */
+    CategoryIndex(Graph graph) {
+        this.graph = graph;
+    }
+
+    /**
+     * Gets the IDs of the products in the subtree of a category, computing them if they are not indexed.
+     *
+     * @param handle The handle of the category
+     * @return The bitmap of the product IDs, which must not be modified
+     */
+    synchronized CompressedBitmap getProductIds(int handle) {
+        return get(handle).productIds;
+    }
+
+    /**
+     * Gets the handles of the categories in the subtree of a category, computing them if they are not indexed.
+     *
+     * @param handle The handle of the category
+     * @return The bitmap of the category handles, which must not be modified
+     */
+    synchronized CompressedBitmap getCategoryHandles(int handle) {
+        return get(handle).categoryHandles;
+    }
+
+    /**
+     * Gets the subtree of a category, computing it if it is not indexed.
+     *
+     * @param handle The handle of the category
+     * @return The subtree
+     */
+    private Subtree get(int handle) {
+        Subtree subtree = subtrees.get(handle);
+        if (subtree != null) {
+            return subtree;
+        }
+
+        // Combine the members of all descendants, visiting every category once even if the hierarchy has cycles
+        List<CompressedBitmap> memberIds = new ArrayList<>();
+        CompressedBitmap categoryHandles = new CompressedBitmap();
+        Set<Integer> visited = new HashSet<>();
+        List<Integer> pending = new ArrayList<>();
+        visited.add(handle);
+        pending.add(handle);
+        while (!pending.isEmpty()) {
+            int category = pending.remove(pending.size() - 1);
+            memberIds.add(graph.getMemberProductIds(category));
+            categoryHandles.add(category);
+            for (Edge edge : graph.getOutgoingEdgesByRelationship(category, RelationshipTypes.CONTAINS)) {
+                int child = graph.getHandle(edge.getTarget());
+                if (edge.getTarget().isCategory() && visited.add(child)) {
+                    pending.add(child);
+                }
+            }
+        }
+        subtree = new Subtree(CompressedBitmap.or(memberIds), categoryHandles);
+        subtrees.put(handle, subtree);
+        return subtree;
+    }
+
+    /**
+     * Invalidates the subtrees affected by a changed canonical edge.
+     *
+     * @param edge The added or removed canonical edge
+     */
+    synchronized void edgeChanged(Edge edge) {
+        if (edge.getRelationship() != RelationshipTypes.CONTAINS || subtrees.isEmpty()) {
+            return;
+        }
+
+        // The subtree of the containing category and of all its ancestors changed
+        Set<Integer> visited = new HashSet<>();
+        List<Integer> pending = new ArrayList<>();
+        int source = graph.getHandle(edge.getSource());
+        visited.add(source);
+        pending.add(source);
+        while (!pending.isEmpty()) {
+            int category = pending.remove(pending.size() - 1);
+            subtrees.remove(category);
+            for (Edge parentEdge : graph.getOutgoingEdgesByRelationship(category, RelationshipTypes.CONTAINED_IN)) {
+                int parent = graph.getHandle(parentEdge.getTarget());
+                if (visited.add(parent)) {
+                    pending.add(parent);
+                }
+            }
+        }
+    }
+
+    /**
+     * Drops the subtree of a node that is removed from the graph.
+     *
+     * @param handle The handle of the removed node
+     */
+    synchronized void nodeRemoved(int handle) {
+        subtrees.remove(handle);
+    }
+
+    /**
+     * Drops all subtrees.
+     */
+    synchronized void clear() {
+        subtrees.clear();
+    }
+
+    /**
+     * The products and categories of the subtree of a category.
+     */
+    private static final class Subtree {
+        private final CompressedBitmap productIds;
+        private final CompressedBitmap categoryHandles;
+
+        /**
+         * Creates a new subtree.
+         *
+         * @param productIds The IDs of the products in the subtree
+         * @param categoryHandles The handles of the categories in the subtree
+         */
+        Subtree(CompressedBitmap productIds, CompressedBitmap categoryHandles) {
+            this.productIds = productIds;
+            this.categoryHandles = categoryHandles;
+        }
+    }
+}
\ No newline at end of file
@@ -9,6 +9,7 @@ public class Edge {
     private final Node source;
     private final Node target;
     private final RelationshipTypes relationship;
+    private final int hashCode;
 
     /**
      * Creates a new edge with the given source, target, and relationship.
@@ -21,6 +22,7 @@ public class Edge {
         this.source = source;
         this.target = target;
         this.relationship = relationship;
+        this.hashCode = computeHashCode();
     }
 
     /**
@@ -59,6 +61,16 @@ public class Edge {
         return new Edge(target, source, relationship.getInverse());
     }
 
+    /**
+     * Gets the canonical form of this edge.
+     * This is the edge itself if its relationship type is canonical, otherwise its inverse.
+     *
+     * @return The canonical edge
+     */
+    public Edge toCanonical() {
+        return relationship.isCanonical() ? this : createInverse();
+    }
+
     /**
      * Checks if the relationship represented by this edge is valid.
      * Different relationship types have restrictions on the types of nodes they can connect.
@@ -90,13 +102,23 @@ public class Edge {
             return false;
         }
         Edge other = (Edge) obj;
-        return source.equals(other.source)
+        return hashCode == other.hashCode
+                && source.equals(other.source)
                 && target.equals(other.target)
                 && relationship == other.relationship;
     }
 
     @Override
     public int hashCode() {
+        return hashCode;
+    }
+
+    /**
+     * Computes the hash code of this edge from its immutable fields.
+     *
+     * @return The hash code
+     */
+    private int computeHashCode() {
         final int prime = 31;
         int result = 1;
         result = prime * result + source.hashCode();
@@ -0,0 +1,213 @@
+package model;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+/**
+ * Order of the edges of a graph, including the inverse edges, by source name, target name and relationship type.
+ * Names are compared case-insensitively and relationship types in their declaration order.
+ * Only the canonical edges are kept, once ordered as they are and once ordered as their inverses,
+ * and both orders are merged while iterating.
+ * As in the name order of the nodes, edges added since the last query are kept aside and merged into
+ * the orders on the next query, which drops the removed edges in the same linear pass.
+ * The order is synchronized, since it may be queried by queries that run in parallel.
+ *
+ * @author uuifx
+ */
+class EdgeOrder {
+    private final Graph graph;
+    private final SortedEdges canonicalOrder = new SortedEdges(false);
+    private final SortedEdges inverseOrder = new SortedEdges(true);
+
+    /**
+     * Creates a new order.
+     *
+     * @param graph The graph whose edges are ordered
+     */
+    EdgeOrder(Graph graph) {
+        this.graph = graph;
+    }
+
+    /**
+     * Gets the edges of the graph in order. The result is not affected by later changes to the graph.
+     *
+     * @return The ordered edges, including the inverse edges
+     */
+    synchronized Iterable<Edge> getEdges() {
+        final Edge[] canonicalEdges = canonicalOrder.update();
+        final Edge[] invertedEdges = inverseOrder.update();
+        return new Iterable<Edge>() {
+            @Override
+            public Iterator<Edge> iterator() {
+                return new MergeIterator(canonicalEdges, invertedEdges);
+            }
+        };
+    }
+
+    /**
+     * Records a canonical edge that was added to the graph.
+     *
+     * @param edge The added canonical edge
+     */
+    synchronized void edgeAdded(Edge edge) {
+        canonicalOrder.add(edge);
+        inverseOrder.add(edge);
+    }
+
+    /**
+     * Records that an edge was removed from the graph.
+     */
+    synchronized void edgeRemoved() {
+        canonicalOrder.modified = true;
+        inverseOrder.modified = true;
+    }
+
+    /**
+     * Drops all edges.
+     */
+    synchronized void clear() {
+        canonicalOrder.clear();
+        inverseOrder.clear();
+    }
+
+    /**
+     * Compares two canonical edges, each either as it is or as its inverse.
+     *
+     * @param first The first canonical edge
+     * @param firstInverted Whether the inverse of the first edge is compared
+     * @param second The second canonical edge
+     * @param secondInverted Whether the inverse of the second edge is compared
+     * @return A negative number, zero or a positive number if the first edge is ordered before, equal to
+     *         or after the second edge
+     */
+    private static int compare(Edge first, boolean firstInverted, Edge second, boolean secondInverted) {
+        Node firstSource = firstInverted ? first.getTarget() : first.getSource();
+        Node secondSource = secondInverted ? second.getTarget() : second.getSource();
+        int sourceComparison = firstSource.getLowerCaseName().compareTo(secondSource.getLowerCaseName());
+        if (sourceComparison != 0) {
+            return sourceComparison;
+        }
+
+        Node firstTarget = firstInverted ? first.getSource() : first.getTarget();
+        Node secondTarget = secondInverted ? second.getSource() : second.getTarget();
+        int targetComparison = firstTarget.getLowerCaseName().compareTo(secondTarget.getLowerCaseName());
+        if (targetComparison != 0) {
+            return targetComparison;
+        }
+
+        RelationshipTypes firstRelationship = firstInverted ? first.getRelationship().getInverse()
+                : first.getRelationship();
+        RelationshipTypes secondRelationship = secondInverted ? second.getRelationship().getInverse()
+                : second.getRelationship();
+        return firstRelationship.ordinal() - secondRelationship.ordinal();
+    }
+
+    /**
+     * Canonical edges ordered either as they are or as their inverses, with the edges added since the last update.
+     */
+    private final class SortedEdges {
+        private final Comparator<Edge> comparator;
+        private Edge[] sortedEdges = new Edge[0];
+        private final List<Edge> addedEdges = new ArrayList<>();
+        private boolean modified;
+
+        SortedEdges(final boolean inverted) {
+            this.comparator = new Comparator<Edge>() {
+                @Override
+                public int compare(Edge first, Edge second) {
+                    return EdgeOrder.compare(first, inverted, second, inverted);
+                }
+            };
+        }
+
+        void add(Edge edge) {
+            addedEdges.add(edge);
+            modified = true;
+        }
+
+        void clear() {
+            sortedEdges = new Edge[0];
+            addedEdges.clear();
+            modified = false;
+        }
+
+        /**
+         * Merges the added edges into the order and drops the removed ones.
+         *
+         * @return The ordered edges, which are never modified afterwards
+         */
+        Edge[] update() {
+            if (!modified) {
+                return sortedEdges;
+            }
+
+            Collections.sort(addedEdges, comparator);
+            Edge[] merged = new Edge[sortedEdges.length + addedEdges.size()];
+            int count = 0;
+            int i = 0;
+            int j = 0;
+            while (i < sortedEdges.length || j < addedEdges.size()) {
+                Edge next;
+                if (j == addedEdges.size()) {
+                    next = sortedEdges[i++];
+                } else if (i == sortedEdges.length) {
+                    next = addedEdges.get(j++);
+                } else {
+                    int comparison = comparator.compare(sortedEdges[i], addedEdges.get(j));
+                    next = comparison <= 0 ? sortedEdges[i++] : addedEdges.get(j++);
+                }
+                if (!graph.getEdges().contains(next)) {
+                    continue;
+                }
+                // An edge that was removed and added again appears more than once, the last one is the current one
+                if (count > 0 && merged[count - 1].equals(next)) {
+                    merged[count - 1] = next;
+                } else {
+                    merged[count++] = next;
+                }
+            }
+
+            sortedEdges = Arrays.copyOf(merged, count);
+            addedEdges.clear();
+            modified = false;
+            return sortedEdges;
+        }
+    }
+
+    /**
+     * Iterator merging the canonical edges in their own order with the inverse edges in theirs.
+     */
+    private static final class MergeIterator implements Iterator<Edge> {
+        private final Edge[] canonicalEdges;
+        private final Edge[] invertedEdges;
+        private int nextCanonical;
+        private int nextInverted;
+
+        MergeIterator(Edge[] canonicalEdges, Edge[] invertedEdges) {
+            this.canonicalEdges = canonicalEdges;
+            this.invertedEdges = invertedEdges;
+        }
+
+        @Override
+        public boolean hasNext() {
+            return nextCanonical < canonicalEdges.length || nextInverted < invertedEdges.length;
+        }
+
+        @Override
+        public Edge next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            if (nextInverted == invertedEdges.length || nextCanonical < canonicalEdges.length
+                    && compare(canonicalEdges[nextCanonical], false, invertedEdges[nextInverted], true) < 0) {
+                return canonicalEdges[nextCanonical++];
+            }
+            return invertedEdges[nextInverted++].createInverse();
+        }
+    }
+}
\ No newline at end of file
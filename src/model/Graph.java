@@ -1,21 +1,48 @@
 package model;
 
+import util.CompressedBitmap;
+
+import java.util.AbstractSet;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
 import java.util.Map;
+import java.util.NoSuchElementException;
 import java.util.Set;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
 /**
  * Represents the product graph with nodes and edges.
+ * Nodes are identified internally by the dense int handles of the node name registry.
  *
  * @author uuifx
  */
 public class Graph {
     private final NodeNameRegistry nodeRegistry = new NodeNameRegistry();
-    private final Set<Node> nodes = new HashSet<>();
+    private final Set<Node> nodesView = new NodesView();
+    // Only edges with a canonical relationship type are stored, their inverses are derived
     private final Set<Edge> edges = new HashSet<>();
-    private final Map<Node, Set<Edge>> outgoingEdges = new HashMap<>();
-    private final Map<Node, Set<Edge>> incomingEdges = new HashMap<>();
+    private final Set<Edge> edgesView = new EdgesView();
+    // Number of stored edges per canonical relationship type, indexed by ordinal
+    private final int[] edgeCounts = new int[RelationshipTypes.values().length];
+    private AdjacencyList[] adjacency = new AdjacencyList[0];
+    // IDs of the products directly contained in a category, indexed by the handle of the category
+    private CompressedBitmap[] memberProductIds = new CompressedBitmap[0];
+    private final Map<Integer, Product> productsById = new HashMap<>();
+    private final ReachabilityIndex reachabilityIndex =
+            new ReachabilityIndex(this, RelationshipTypes.PREDECESSOR_OF, RelationshipTypes.SUCCESSOR_OF,
+                    RelationshipTypes.HAS_PART, RelationshipTypes.PART_OF);
+    private final CategoryIndex categoryIndex = new CategoryIndex(this);
+    private final NameOrder nameOrder = new NameOrder(this);
+    private final EdgeOrder edgeOrder = new EdgeOrder(this);
+    private final List<GraphListener> listeners = new ArrayList<>();
+    private long modificationCount;
+    // Mutations hold the write lock; readers that need a stable graph across threads hold the read lock
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
 
     /**
      * Adds a node to the graph.
@@ -24,18 +51,36 @@ public class Graph {
      * @return true if the node was added, false if a node with the same name already exists
      */
     public boolean addNode(Node node) {
-        if (node == null) {
-            return false;
-        }
+        lock.writeLock().lock();
+        try {
+            if (node == null) {
+                return false;
+            }
 
-        if (!nodeRegistry.registerNode(node)) {
-            return false;
-        }
+            if (!nodeRegistry.registerNode(node)) {
+                return false;
+            }
 
-        nodes.add(node);
-        outgoingEdges.put(node, new HashSet<>());
-        incomingEdges.put(node, new HashSet<>());
-        return true;
+            int handle = nodeRegistry.getHandle(node);
+            if (handle >= adjacency.length) {
+                adjacency = Arrays.copyOf(adjacency, Math.max(nodeRegistry.getHandleLimit(), 2 * adjacency.length));
+                memberProductIds = Arrays.copyOf(memberProductIds, adjacency.length);
+            }
+            adjacency[handle] = new AdjacencyList();
+            memberProductIds[handle] = node.isCategory() ? new CompressedBitmap() : null;
+            if (node.isProduct()) {
+                Product product = (Product) node;
+                productsById.putIfAbsent(product.getId(), product);
+            }
+            nameOrder.nodeAdded(node);
+            modificationCount++;
+            for (GraphListener listener : listeners) {
+                listener.nodeAdded(node);
+            }
+            return true;
+        } finally {
+            lock.writeLock().unlock();
+        }
     }
 
     /**
@@ -48,45 +93,116 @@ public class Graph {
         return nodeRegistry.getNodeByName(name);
     }
 
+    /**
+     * Gets the handle of a node in this graph.
+     *
+     * @param node The node
+     * @return The handle of the node, or {@link NodeNameRegistry#NO_HANDLE} if the node is not in the graph
+     */
+    public int getHandle(Node node) {
+        return nodeRegistry.getHandle(node);
+    }
+
+    /**
+     * Gets the node with the given handle.
+     *
+     * @param handle The handle of the node
+     * @return The node, or null if no node has the handle
+     */
+    public Node getNode(int handle) {
+        return nodeRegistry.getNode(handle);
+    }
+
+    /**
+     * Gets the rank of a node in the order of all nodes of this graph by name (case-insensitive).
+     * Ordering nodes by their ranks orders them by name.
+     *
+     * @param node The node
+     * @return The rank of the node, or -1 if the node is not in the graph
+     */
+    public int getNameRank(Node node) {
+        return nameOrder.getRank(node);
+    }
+
+    /**
+     * Gets the node with the given rank in the order of all nodes of this graph by name (case-insensitive).
+     *
+     * @param rank The rank, from zero to the number of nodes (exclusive)
+     * @return The node with the rank
+     */
+    public Node getNodeByNameRank(int rank) {
+        return nameOrder.getNode(rank);
+    }
+
+    /**
+     * Gets the exclusive upper bound of all node handles.
+     * Arrays indexed by node handle must have at least this length.
+     *
+     * @return The handle limit
+     */
+    public int getHandleLimit() {
+        return nodeRegistry.getHandleLimit();
+    }
+
+    /**
+     * Gets a product by its ID.
+     *
+     * @param productId The ID of the product
+     * @return The product with the given ID, or null if not found
+     */
+    public Product getProductById(int productId) {
+        return productsById.get(productId);
+    }
+
     /**
      * Adds an edge to the graph.
-     * Also adds the inverse edge automatically.
+     * The inverse edge is part of the graph implicitly.
      *
      * @param edge The edge to add
      * @return true if the edge was added, false if the edge already exists or is invalid
      */
     public boolean addEdge(Edge edge) {
-        if (edge == null || !edge.isValidRelationship()) {
-            return false;
-        }
-
-        Node source = edge.getSource();
-        Node target = edge.getTarget();
+        lock.writeLock().lock();
+        try {
+            if (edge == null || !edge.isValidRelationship()) {
+                return false;
+            }
 
-        // Make sure both nodes are in the graph
-        if (!nodes.contains(source) || !nodes.contains(target)) {
-            return false;
-        }
+            // Make sure both nodes are in the graph
+            Edge canonicalEdge = edge.toCanonical();
+            int sourceHandle = nodeRegistry.getHandle(canonicalEdge.getSource());
+            int targetHandle = nodeRegistry.getHandle(canonicalEdge.getTarget());
+            if (sourceHandle == NodeNameRegistry.NO_HANDLE || targetHandle == NodeNameRegistry.NO_HANDLE) {
+                return false;
+            }
 
-        // Check if the edge already exists
-        if (edges.contains(edge)) {
-            return false;
-        }
+            // Store the edge between the registered node instances
+            Node source = nodeRegistry.getNode(sourceHandle);
+            Node target = nodeRegistry.getNode(targetHandle);
+            if (source != canonicalEdge.getSource() || target != canonicalEdge.getTarget()) {
+                canonicalEdge = new Edge(source, target, canonicalEdge.getRelationship());
+            }
 
-        // Add the edge
-        edges.add(edge);
-        outgoingEdges.get(source).add(edge);
-        incomingEdges.get(target).add(edge);
-
-        // Add the inverse edge if it doesn't already exist
-        Edge inverseEdge = edge.createInverse();
-        if (!edges.contains(inverseEdge)) {
-            edges.add(inverseEdge);
-            outgoingEdges.get(target).add(inverseEdge);
-            incomingEdges.get(source).add(inverseEdge);
+            // Check if the edge or its inverse already exists
+            if (!edges.add(canonicalEdge)) {
+                return false;
+            }
+            edgeCounts[canonicalEdge.getRelationship().ordinal()]++;
+            edgeOrder.edgeAdded(canonicalEdge);
+
+            adjacency[sourceHandle].addOutgoing(canonicalEdge);
+            adjacency[targetHandle].addIncoming(canonicalEdge);
+            updateMembership(sourceHandle, canonicalEdge, true);
+            reachabilityIndex.edgeAdded(canonicalEdge);
+            categoryIndex.edgeChanged(canonicalEdge);
+            modificationCount++;
+            for (GraphListener listener : listeners) {
+                listener.edgeAdded(canonicalEdge);
+            }
+            return true;
+        } finally {
+            lock.writeLock().unlock();
         }
-
-        return true;
     }
 
     /**
@@ -96,39 +212,72 @@ public class Graph {
      * @return true if the edge was removed, false if the edge was not in the graph
      */
     public boolean removeEdge(Edge edge) {
-        if (edge == null || !edges.contains(edge)) {
-            return false;
-        }
-
-        Node source = edge.getSource();
-        Node target = edge.getTarget();
+        lock.writeLock().lock();
+        try {
+            if (edge == null) {
+                return false;
+            }
 
-        // Remove the edge
-        edges.remove(edge);
-        outgoingEdges.get(source).remove(edge);
-        incomingEdges.get(target).remove(edge);
+            Edge canonicalEdge = edge.toCanonical();
+            if (!edges.remove(canonicalEdge)) {
+                return false;
+            }
+            edgeCounts[canonicalEdge.getRelationship().ordinal()]--;
+            edgeOrder.edgeRemoved();
+
+            int sourceHandle = nodeRegistry.getHandle(canonicalEdge.getSource());
+            int targetHandle = nodeRegistry.getHandle(canonicalEdge.getTarget());
+            adjacency[sourceHandle].removeOutgoing(canonicalEdge);
+            adjacency[targetHandle].removeIncoming(canonicalEdge);
+            updateMembership(sourceHandle, canonicalEdge, false);
+            reachabilityIndex.edgeRemoved(canonicalEdge);
+            categoryIndex.edgeChanged(canonicalEdge);
+            modificationCount++;
+            for (GraphListener listener : listeners) {
+                listener.edgeRemoved(canonicalEdge);
+            }
 
-        // Remove the inverse edge
-        Edge inverseEdge = edge.createInverse();
-        edges.remove(inverseEdge);
-        outgoingEdges.get(target).remove(inverseEdge);
-        incomingEdges.get(source).remove(inverseEdge);
+            // Check if any nodes have become isolated and should be removed
+            checkAndRemoveIsolatedNodes(sourceHandle, targetHandle);
 
-        // Check if any nodes have become isolated and should be removed
-        checkAndRemoveIsolatedNodes(source, target);
+            return true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
 
-        return true;
+    /**
+     * Updates the member product IDs of a category after a contains edge was added or removed.
+     * Edges of other relationship types are ignored.
+     *
+     * @param sourceHandle The handle of the source node of the edge
+     * @param canonicalEdge The added or removed canonical edge
+     * @param added true if the edge was added, false if it was removed
+     */
+    private void updateMembership(int sourceHandle, Edge canonicalEdge, boolean added) {
+        CompressedBitmap members = memberProductIds[sourceHandle];
+        if (canonicalEdge.getRelationship() != RelationshipTypes.CONTAINS || members == null
+                || !canonicalEdge.getTarget().isProduct()) {
+            return;
+        }
+        int productId = ((Product) canonicalEdge.getTarget()).getId();
+        if (added) {
+            members.add(productId);
+        } else {
+            members.remove(productId);
+        }
     }
 
     /**
      * Checks if the given nodes have become isolated (have no edges) and removes them if so.
      *
-     * @param nodesToCheck The nodes to check
+     * @param handlesToCheck The handles of the nodes to check
      */
-    private void checkAndRemoveIsolatedNodes(Node... nodesToCheck) {
-        for (Node node : nodesToCheck) {
-            if (outgoingEdges.get(node).isEmpty() && incomingEdges.get(node).isEmpty()) {
-                removeNode(node);
+    private void checkAndRemoveIsolatedNodes(int... handlesToCheck) {
+        for (int handle : handlesToCheck) {
+            AdjacencyList nodeAdjacency = adjacency[handle];
+            if (nodeAdjacency != null && nodeAdjacency.isEmpty()) {
+                removeNode(nodeRegistry.getNode(handle));
             }
         }
     }
@@ -140,33 +289,53 @@ public class Graph {
      * @return true if the node was removed, false if the node was not in the graph
      */
     public boolean removeNode(Node node) {
-        if (node == null || !nodes.contains(node)) {
-            return false;
-        }
-
-        // Remove all edges connected to this node
-        Set<Edge> edgesToRemove = new HashSet<>();
-        edgesToRemove.addAll(outgoingEdges.get(node));
-        edgesToRemove.addAll(incomingEdges.get(node));
-
-        for (Edge edge : edgesToRemove) {
-            edges.remove(edge);
+        lock.writeLock().lock();
+        try {
+            int handle = nodeRegistry.getHandle(node);
+            if (handle == NodeNameRegistry.NO_HANDLE) {
+                return false;
+            }
 
-            Node otherNode = edge.getSource().equals(node) ? edge.getTarget() : edge.getSource();
-            if (edge.getSource().equals(node)) {
-                incomingEdges.get(otherNode).remove(edge);
-            } else {
-                outgoingEdges.get(otherNode).remove(edge);
+            // Remove all edges connected to this node
+            for (Edge edge : adjacency[handle].canonicalEdges()) {
+                edges.remove(edge);
+                edgeCounts[edge.getRelationship().ordinal()]--;
+                edgeOrder.edgeRemoved();
+                int sourceHandle = nodeRegistry.getHandle(edge.getSource());
+                int targetHandle = nodeRegistry.getHandle(edge.getTarget());
+                if (targetHandle != handle) {
+                    adjacency[targetHandle].removeIncoming(edge);
+                } else if (sourceHandle != handle) {
+                    adjacency[sourceHandle].removeOutgoing(edge);
+                }
+                updateMembership(sourceHandle, edge, false);
+                reachabilityIndex.edgeRemoved(edge);
+                categoryIndex.edgeChanged(edge);
+                for (GraphListener listener : listeners) {
+                    listener.edgeRemoved(edge);
+                }
             }
-        }
 
-        // Remove the node
-        nodes.remove(node);
-        outgoingEdges.remove(node);
-        incomingEdges.remove(node);
-        nodeRegistry.removeNode(node);
+            // Remove the node
+            reachabilityIndex.nodeRemoved(handle);
+            categoryIndex.nodeRemoved(handle);
+            Node registeredNode = nodeRegistry.getNode(handle);
+            adjacency[handle] = null;
+            memberProductIds[handle] = null;
+            nodeRegistry.removeNode(registeredNode);
+            if (registeredNode.isProduct()) {
+                productsById.remove(((Product) registeredNode).getId(), registeredNode);
+            }
+            nameOrder.nodeRemoved();
+            modificationCount++;
+            for (GraphListener listener : listeners) {
+                listener.nodeRemoved(registeredNode);
+            }
 
-        return true;
+            return true;
+        } finally {
+            lock.writeLock().unlock();
+        }
     }
 
     /**
@@ -175,7 +344,7 @@ public class Graph {
      * @return An unmodifiable view of the nodes
      */
     public Set<Node> getNodes() {
-        return Collections.unmodifiableSet(nodes);
+        return nodesView;
     }
 
     /**
@@ -184,7 +353,28 @@ public class Graph {
      * @return An unmodifiable view of the edges
      */
     public Set<Edge> getEdges() {
-        return Collections.unmodifiableSet(edges);
+        return edgesView;
+    }
+
+    /**
+     * Gets all nodes in the graph ordered by name (case-insensitive).
+     * The result is not affected by later changes to the graph.
+     *
+     * @return An unmodifiable list of the nodes in name order
+     */
+    public List<Node> getNodesInOrder() {
+        return Collections.unmodifiableList(Arrays.asList(nameOrder.getNodes()));
+    }
+
+    /**
+     * Gets all edges in the graph, including the inverse edges, ordered by source name, target name
+     * and relationship type. Names are compared case-insensitively and relationship types in their declaration order.
+     * The result is not affected by later changes to the graph.
+     *
+     * @return The edges in order
+     */
+    public Iterable<Edge> getEdgesInOrder() {
+        return edgeOrder.getEdges();
     }
 
     /**
@@ -194,7 +384,7 @@ public class Graph {
      */
     public Set<Product> getProducts() {
         Set<Product> products = new HashSet<>();
-        for (Node node : nodes) {
+        for (Node node : nodesView) {
             if (node.isProduct()) {
                 products.add((Product) node);
             }
@@ -209,7 +399,7 @@ public class Graph {
      */
     public Set<Category> getCategories() {
         Set<Category> categories = new HashSet<>();
-        for (Node node : nodes) {
+        for (Node node : nodesView) {
             if (node.isCategory()) {
                 categories.add((Category) node);
             }
@@ -217,6 +407,27 @@ public class Graph {
         return categories;
     }
 
+    /**
+     * Gets the number of product nodes in the graph.
+     *
+     * @return The number of products
+     */
+    public int getProductCount() {
+        return productsById.size();
+    }
+
+    /**
+     * Gets the number of edges of a relationship type.
+     * Every edge of a type has an inverse edge of the inverse type, so both types have the same count.
+     *
+     * @param relationship The relationship type
+     * @return The number of edges of the type
+     */
+    public int getEdgeCount(RelationshipTypes relationship) {
+        RelationshipTypes canonical = relationship.isCanonical() ? relationship : relationship.getInverse();
+        return edgeCounts[canonical.ordinal()];
+    }
+
     /**
      * Gets all outgoing edges from a node.
      *
@@ -224,10 +435,11 @@ public class Graph {
      * @return A set of all outgoing edges, or an empty set if the node is not in the graph
      */
     public Set<Edge> getOutgoingEdges(Node node) {
-        if (node == null || !nodes.contains(node)) {
+        int handle = nodeRegistry.getHandle(node);
+        if (handle == NodeNameRegistry.NO_HANDLE) {
             return Collections.emptySet();
         }
-        return Collections.unmodifiableSet(outgoingEdges.get(node));
+        return adjacency[handle].allOutgoing();
     }
 
     /**
@@ -237,10 +449,11 @@ public class Graph {
      * @return A set of all incoming edges, or an empty set if the node is not in the graph
      */
     public Set<Edge> getIncomingEdges(Node node) {
-        if (node == null || !nodes.contains(node)) {
+        int handle = nodeRegistry.getHandle(node);
+        if (handle == NodeNameRegistry.NO_HANDLE) {
             return Collections.emptySet();
         }
-        return Collections.unmodifiableSet(incomingEdges.get(node));
+        return adjacency[handle].allIncoming();
     }
 
     /**
@@ -248,20 +461,24 @@ public class Graph {
      *
      * @param node The node
      * @param relationship The relationship type
-     * @return A set of all matching outgoing edges
+     * @return An unmodifiable view of all matching outgoing edges
      */
     public Set<Edge> getOutgoingEdgesByRelationship(Node node, RelationshipTypes relationship) {
-        if (node == null || relationship == null || !nodes.contains(node)) {
-            return Collections.emptySet();
-        }
+        return getOutgoingEdgesByRelationship(nodeRegistry.getHandle(node), relationship);
+    }
 
-        Set<Edge> result = new HashSet<>();
-        for (Edge edge : outgoingEdges.get(node)) {
-            if (edge.getRelationship() == relationship) {
-                result.add(edge);
-            }
+    /**
+     * Gets all outgoing edges of a specific relationship type from the node with the given handle.
+     *
+     * @param handle The handle of the node
+     * @param relationship The relationship type
+     * @return An unmodifiable view of all matching outgoing edges
+     */
+    public Set<Edge> getOutgoingEdgesByRelationship(int handle, RelationshipTypes relationship) {
+        if (handle < 0 || handle >= adjacency.length || adjacency[handle] == null || relationship == null) {
+            return Collections.emptySet();
         }
-        return result;
+        return adjacency[handle].outgoing(relationship);
     }
 
     /**
@@ -269,30 +486,238 @@ public class Graph {
      *
      * @param node The node
      * @param relationship The relationship type
-     * @return A set of all matching incoming edges
+     * @return An unmodifiable view of all matching incoming edges
      */
     public Set<Edge> getIncomingEdgesByRelationship(Node node, RelationshipTypes relationship) {
-        if (node == null || relationship == null || !nodes.contains(node)) {
+        int handle = nodeRegistry.getHandle(node);
+        if (handle == NodeNameRegistry.NO_HANDLE || relationship == null) {
             return Collections.emptySet();
         }
+        return adjacency[handle].incoming(relationship);
+    }
 
-        Set<Edge> result = new HashSet<>();
-        for (Edge edge : incomingEdges.get(node)) {
-            if (edge.getRelationship() == relationship) {
-                result.add(edge);
-            }
+    /**
+     * Gets the IDs of all products directly contained in a category.
+     * The bitmap is maintained by the graph and must not be modified by the caller.
+     *
+     * @param handle The handle of the category
+     * @return The bitmap of the member product IDs, or null if the handle does not belong to a category
+     */
+    public CompressedBitmap getMemberProductIds(int handle) {
+        if (handle < 0 || handle >= memberProductIds.length) {
+            return null;
         }
-        return result;
+        return memberProductIds[handle];
+    }
+
+    /**
+     * Gets the IDs of all products directly or indirectly contained in a category, that is the members
+     * of the category and of all categories below it. The bitmap is kept by the graph until the
+     * category's subtree changes and must not be modified by the caller.
+     *
+     * @param handle The handle of the category
+     * @return The bitmap of the product IDs, or null if the handle does not belong to a category
+     */
+    public CompressedBitmap getSubtreeProductIds(int handle) {
+        if (getMemberProductIds(handle) == null) {
+            return null;
+        }
+        return categoryIndex.getProductIds(handle);
+    }
+
+    /**
+     * Gets the handles of a category and all categories directly or indirectly contained in it.
+     * The bitmap is kept by the graph until the category's subtree changes and must not be modified by the caller.
+     *
+     * @param handle The handle of the category
+     * @return The bitmap of the category handles, or null if the handle does not belong to a category
+     */
+    public CompressedBitmap getSubtreeCategoryHandles(int handle) {
+        if (getMemberProductIds(handle) == null) {
+            return null;
+        }
+        return categoryIndex.getCategoryHandles(handle);
+    }
+
+    /**
+     * Gets the indexed transitive closure of a node over a relationship type.
+     * The closure contains all products reachable from the node by following edges of the
+     * relationship type through products, excluding the node itself.
+     * Closures over predecessor-of, successor-of, has-part and part-of are indexed.
+     *
+     * @param handle The handle of the node
+     * @param relationship The relationship type
+     * @return The product IDs of the closure, which must not be modified, or null if it has not been indexed yet
+     */
+    public CompressedBitmap getIndexedClosure(int handle, RelationshipTypes relationship) {
+        return reachabilityIndex.get(handle, relationship);
+    }
+
+    /**
+     * Adds the transitive closure of a node to the index.
+     * The index keeps the closure up to date as long as the graph changes.
+     *
+     * @param handle The handle of the node
+     * @param relationship The relationship type
+     * @param closureIds The product IDs of the closure computed from the current graph,
+     *                   which must not be modified afterwards
+     */
+    public void indexClosure(int handle, RelationshipTypes relationship, CompressedBitmap closureIds) {
+        reachabilityIndex.put(handle, relationship, closureIds);
+    }
+
+    /**
+     * Gets the modification count of the graph, which increases with every change to its nodes or edges.
+     * Results derived from the graph remain valid as long as the count is unchanged.
+     *
+     * @return The modification count
+     */
+    public long getModificationCount() {
+        return modificationCount;
+    }
+
+    /**
+     * Gets the read lock of the graph. While it is held, no other thread can change the graph,
+     * so several threads can evaluate queries against the same consistent state.
+     *
+     * @return The read lock
+     */
+    public Lock getReadLock() {
+        return lock.readLock();
     }
 
     /**
      * Clears the graph, removing all nodes and edges.
      */
     public void clear() {
-        nodes.clear();
-        edges.clear();
-        outgoingEdges.clear();
-        incomingEdges.clear();
-        nodeRegistry.clear();
+        lock.writeLock().lock();
+        try {
+            edges.clear();
+            Arrays.fill(edgeCounts, 0);
+            adjacency = new AdjacencyList[0];
+            memberProductIds = new CompressedBitmap[0];
+            productsById.clear();
+            reachabilityIndex.clear();
+            categoryIndex.clear();
+            nameOrder.clear();
+            edgeOrder.clear();
+            nodeRegistry.clear();
+            modificationCount++;
+            for (GraphListener listener : listeners) {
+                listener.graphCleared();
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Registers a listener that is notified about every change to the graph.
+     *
+     * @param listener The listener to add
+     */
+    public void addListener(GraphListener listener) {
+        listeners.add(listener);
+    }
+
+    /**
+     * Unregisters a listener.
+     *
+     * @param listener The listener to remove
+     * @return true if the listener was registered, false otherwise
+     */
+    public boolean removeListener(GraphListener listener) {
+        return listeners.remove(listener);
+    }
+
+    /**
+     * Read-only view of all registered nodes, in handle order.
+     */
+    private final class NodesView extends AbstractSet<Node> {
+        @Override
+        public Iterator<Node> iterator() {
+            return new Iterator<Node>() {
+                private int nextHandle = advance(0);
+
+                /**
+                 * Finds the first handle at or after the given one that belongs to a node.
+                 *
+                 * @param handle The handle to start at
+                 * @return The next used handle, or the handle limit if there is none
+                 */
+                private int advance(int handle) {
+                    int current = handle;
+                    while (current < nodeRegistry.getHandleLimit() && nodeRegistry.getNode(current) == null) {
+                        current++;
+                    }
+                    return current;
+                }
+
+                @Override
+                public boolean hasNext() {
+                    return nextHandle < nodeRegistry.getHandleLimit();
+                }
+
+                @Override
+                public Node next() {
+                    if (!hasNext()) {
+                        throw new NoSuchElementException();
+                    }
+                    Node node = nodeRegistry.getNode(nextHandle);
+                    nextHandle = advance(nextHandle + 1);
+                    return node;
+                }
+            };
+        }
+
+        @Override
+        public boolean contains(Object obj) {
+            return obj instanceof Node && nodeRegistry.getHandle((Node) obj) != NodeNameRegistry.NO_HANDLE;
+        }
+
+        @Override
+        public int size() {
+            return nodeRegistry.size();
+        }
+    }
+
+    /**
+     * Read-only view of all edges, containing every stored edge together with its inverse.
+     */
+    private final class EdgesView extends AbstractSet<Edge> {
+        @Override
+        public Iterator<Edge> iterator() {
+            final Iterator<Edge> canonicalEdges = edges.iterator();
+            return new Iterator<Edge>() {
+                private Edge pendingInverse;
+
+                @Override
+                public boolean hasNext() {
+                    return pendingInverse != null || canonicalEdges.hasNext();
+                }
+
+                @Override
+                public Edge next() {
+                    if (pendingInverse != null) {
+                        Edge inverse = pendingInverse;
+                        pendingInverse = null;
+                        return inverse;
+                    }
+                    Edge edge = canonicalEdges.next();
+                    pendingInverse = edge.createInverse();
+                    return edge;
+                }
+            };
+        }
+
+        @Override
+        public boolean contains(Object obj) {
+            return obj instanceof Edge && edges.contains(((Edge) obj).toCanonical());
+        }
+
+        @Override
+        public int size() {
+            return 2 * edges.size();
+        }
     }
 }
\ No newline at end of file
@@ -0,0 +1,43 @@
+package model;
+
+/**
+ * Listener for changes to a product graph.
+ * Edge events are reported for the canonical edge only; the change to its inverse is implied.
+ *
+ * @author uuifx
+ */
+public interface GraphListener {
+
+    /**
+     * Called after a node was added to the graph.
+     *
+     * @param node The added node
+     */
+    void nodeAdded(Node node);
+
+    /**
+     * Called after a node was removed from the graph. Its edges have been removed before.
+     *
+     * @param node The removed node
+     */
+    void nodeRemoved(Node node);
+
+    /**
+     * Called after a canonical edge, and thereby its inverse, was added to the graph.
+     *
+     * @param edge The added canonical edge
+     */
+    void edgeAdded(Edge edge);
+
+    /**
+     * Called after a canonical edge, and thereby its inverse, was removed from the graph.
+     *
+     * @param edge The removed canonical edge
+     */
+    void edgeRemoved(Edge edge);
+
+    /**
+     * Called after all nodes and edges were removed from the graph.
+     */
+    void graphCleared();
+}
\ No newline at end of file
@@ -0,0 +1,153 @@
+package model;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Order of the nodes of a graph by their names (case-insensitive), which are unique within a graph.
+ * The rank of a node is its position in this order, so sorting nodes by name amounts to sorting their ranks.
+ * Nodes added since the last query are kept aside and merged into the order on the next query:
+ * only the added nodes are sorted, then one linear pass merges them into the ordered nodes,
+ * drops the removed ones and renumbers the ranks.
+ * The order is synchronized, since it may be queried by queries that run in parallel.
+ *
+ * @author uuifx
+ */
+class NameOrder {
+    private static final Comparator<Node> BY_NAME = new Comparator<Node>() {
+        @Override
+        public int compare(Node first, Node second) {
+            return first.getLowerCaseName().compareTo(second.getLowerCaseName());
+        }
+    };
+
+    private final Graph graph;
+    private Node[] nodesByRank = new Node[0];
+    // Rank of every node of the graph, indexed by node handle
+    private int[] ranksByHandle = new int[0];
+    private final List<Node> addedNodes = new ArrayList<>();
+    private boolean modified;
+
+    /**
+     * Creates a new order.
+     *
+     * @param graph The graph whose nodes are ordered
+     */
+    NameOrder(Graph graph) {
+        this.graph = graph;
+    }
+
+    /**
+     * Gets the rank of a node.
+     *
+     * @param node The node
+     * @return The rank of the node, or -1 if the node is not in the graph
+     */
+    synchronized int getRank(Node node) {
+        update();
+        int handle = graph.getHandle(node);
+        return handle == NodeNameRegistry.NO_HANDLE ? -1 : ranksByHandle[handle];
+    }
+
+    /**
+     * Gets the node with the given rank.
+     *
+     * @param rank The rank, from zero to the number of nodes (exclusive)
+     * @return The node with the rank
+     */
+    synchronized Node getNode(int rank) {
+        update();
+        return nodesByRank[rank];
+    }
+
+    /**
+     * Gets all nodes in order.
+     *
+     * @return The nodes ordered by rank, which must not be modified
+     */
+    synchronized Node[] getNodes() {
+        update();
+        return nodesByRank;
+    }
+
+    /**
+     * Records a node that was added to the graph.
+     *
+     * @param node The added node
+     */
+    synchronized void nodeAdded(Node node) {
+        addedNodes.add(node);
+        modified = true;
+    }
+
+    /**
+     * Records that a node was removed from the graph.
+     */
+    synchronized void nodeRemoved() {
+        modified = true;
+    }
+
+    /**
+     * Drops all nodes.
+     */
+    synchronized void clear() {
+        nodesByRank = new Node[0];
+        ranksByHandle = new int[0];
+        addedNodes.clear();
+        modified = false;
+    }
+
+    /**
+     * Merges the nodes added since the last query into the order and drops the removed ones.
+     */
+    private void update() {
+        if (!modified) {
+            return;
+        }
+
+        Collections.sort(addedNodes, BY_NAME);
+        Node[] merged = new Node[graph.getNodes().size()];
+        int count = 0;
+        int i = 0;
+        int j = 0;
+        while (i < nodesByRank.length || j < addedNodes.size()) {
+            // A node that was removed and added again may appear on both sides, but is kept once
+            Node next;
+            if (j == addedNodes.size()) {
+                next = nodesByRank[i++];
+            } else if (i == nodesByRank.length) {
+                next = addedNodes.get(j++);
+            } else {
+                int comparison = BY_NAME.compare(nodesByRank[i], addedNodes.get(j));
+                next = comparison <= 0 ? nodesByRank[i++] : addedNodes.get(j++);
+            }
+            if (isInGraph(next) && (count == 0 || merged[count - 1] != next)) {
+                merged[count++] = next;
+            }
+        }
+
+        nodesByRank = merged;
+        if (ranksByHandle.length < graph.getHandleLimit()) {
+            ranksByHandle = Arrays.copyOf(ranksByHandle, graph.getHandleLimit());
+        }
+        for (int rank = 0; rank < count; rank++) {
+            ranksByHandle[graph.getHandle(nodesByRank[rank])] = rank;
+        }
+        addedNodes.clear();
+        modified = false;
+    }
+
+    /**
+     * Checks if a node is in the graph, as opposed to a removed node or one replaced by a node of the same name.
+     *
+     * @param node The node
+     * @return true if the node is in the graph, false otherwise
+     */
+    private boolean isInGraph(Node node) {
+        int handle = graph.getHandle(node);
+        return handle != NodeNameRegistry.NO_HANDLE && graph.getNode(handle) == node;
+    }
+}
\ No newline at end of file
@@ -8,6 +8,8 @@ package model;
  */
 public abstract class Node {
     private final String name;
+    private final String lowerCaseName;
+    private final int hashCode;
 
     /**
      * Creates a new node with the given name.
@@ -16,6 +18,8 @@ public abstract class Node {
      */
     public Node(String name) {
         this.name = name;
+        this.lowerCaseName = name.toLowerCase();
+        this.hashCode = lowerCaseName.hashCode();
     }
 
     /**
@@ -29,11 +33,12 @@ public abstract class Node {
 
     /**
      * Returns the lowercase version of the node name for case-insensitive comparison.
+     * The lowercase name is computed once when the node is created.
      *
      * @return The lowercase node name
      */
     public String getLowerCaseName() {
-        return name.toLowerCase();
+        return lowerCaseName;
     }
 
     /**
@@ -59,16 +64,16 @@ public abstract class Node {
             return false;
         }
         Node other = (Node) obj;
-        return this.getLowerCaseName().equals(other.getLowerCaseName());
+        return hashCode == other.hashCode && lowerCaseName.equals(other.lowerCaseName);
     }
 
     @Override
     public int hashCode() {
-        return getLowerCaseName().hashCode();
+        return hashCode;
     }
 
     @Override
     public String toString() {
-        return name.toLowerCase();
+        return lowerCaseName;
     }
 }
\ No newline at end of file
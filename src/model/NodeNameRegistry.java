@@ -1,15 +1,30 @@
 package model;
 
+import java.util.Arrays;
 import java.util.HashMap;
 import java.util.Map;
 
 /**
  * Registry for node names to ensure uniqueness (case-insensitive).
+ * Acts as the symbol table of a graph: every registered name is interned once and assigned
+ * a dense int handle, which the graph uses to index its primitive per-node arrays.
+ * Handles of removed nodes are reused for later registrations.
  *
  * @author uuifx
  */
 public class NodeNameRegistry {
-    private final Map<String, Node> nodesByLowerCaseName = new HashMap<>();
+    /**
+     * Handle value used for names that are not registered.
+     */
+    public static final int NO_HANDLE = -1;
+
+    private static final int INITIAL_CAPACITY = 16;
+
+    private final Map<String, Integer> handlesByLowerCaseName = new HashMap<>();
+    private Node[] nodesByHandle = new Node[INITIAL_CAPACITY];
+    private int[] freeHandles = new int[INITIAL_CAPACITY];
+    private int freeHandleCount;
+    private int handleLimit;
 
     /**
      * Registers a node in the registry.
@@ -19,11 +34,21 @@ public class NodeNameRegistry {
      */
     public boolean registerNode(Node node) {
         String lowerCaseName = node.getLowerCaseName();
-        if (nodesByLowerCaseName.containsKey(lowerCaseName)) {
+        if (handlesByLowerCaseName.containsKey(lowerCaseName)) {
             return false;
         }
 
-        nodesByLowerCaseName.put(lowerCaseName, node);
+        int handle;
+        if (freeHandleCount > 0) {
+            handle = freeHandles[--freeHandleCount];
+        } else {
+            handle = handleLimit++;
+            if (handle == nodesByHandle.length) {
+                nodesByHandle = Arrays.copyOf(nodesByHandle, 2 * nodesByHandle.length);
+            }
+        }
+        nodesByHandle[handle] = node;
+        handlesByLowerCaseName.put(lowerCaseName, handle);
         return true;
     }
 
@@ -34,10 +59,60 @@ public class NodeNameRegistry {
      * @return The node with the given name, or null if not found
      */
     public Node getNodeByName(String name) {
+        return getNode(getHandle(name));
+    }
+
+    /**
+     * Gets the handle of a name (case-insensitive).
+     *
+     * @param name The name of the node
+     * @return The handle of the name, or {@link #NO_HANDLE} if not found
+     */
+    public int getHandle(String name) {
         if (name == null) {
+            return NO_HANDLE;
+        }
+        return lookup(name.toLowerCase());
+    }
+
+    /**
+     * Gets the handle under which an equal node is registered.
+     *
+     * @param node The node
+     * @return The handle of the registered node, or {@link #NO_HANDLE} if no equal node is registered
+     */
+    public int getHandle(Node node) {
+        if (node == null) {
+            return NO_HANDLE;
+        }
+        int handle = lookup(node.getLowerCaseName());
+        if (handle == NO_HANDLE || !nodesByHandle[handle].equals(node)) {
+            return NO_HANDLE;
+        }
+        return handle;
+    }
+
+    /**
+     * Gets the registered node with the given handle.
+     *
+     * @param handle The handle of the node
+     * @return The node, or null if no node is registered under the handle
+     */
+    public Node getNode(int handle) {
+        if (handle < 0 || handle >= handleLimit) {
             return null;
         }
-        return nodesByLowerCaseName.get(name.toLowerCase());
+        return nodesByHandle[handle];
+    }
+
+    /**
+     * Gets the exclusive upper bound of all handles handed out so far.
+     * Arrays indexed by handle must have at least this length.
+     *
+     * @return The handle limit
+     */
+    public int getHandleLimit() {
+        return handleLimit;
     }
 
     /**
@@ -50,7 +125,7 @@ public class NodeNameRegistry {
         if (node == null) {
             return false;
         }
-        return nodesByLowerCaseName.remove(node.getLowerCaseName()) != null;
+        return release(node.getLowerCaseName());
     }
 
     /**
@@ -63,7 +138,7 @@ public class NodeNameRegistry {
         if (name == null) {
             return false;
         }
-        return nodesByLowerCaseName.remove(name.toLowerCase()) != null;
+        return release(name.toLowerCase());
     }
 
     /**
@@ -76,7 +151,7 @@ public class NodeNameRegistry {
         if (name == null) {
             return false;
         }
-        return nodesByLowerCaseName.containsKey(name.toLowerCase());
+        return handlesByLowerCaseName.containsKey(name.toLowerCase());
     }
 
     /**
@@ -85,13 +160,46 @@ public class NodeNameRegistry {
      * @return The number of nodes
      */
     public int size() {
-        return nodesByLowerCaseName.size();
+        return handlesByLowerCaseName.size();
     }
 
     /**
      * Clears the registry.
      */
     public void clear() {
-        nodesByLowerCaseName.clear();
+        handlesByLowerCaseName.clear();
+        Arrays.fill(nodesByHandle, 0, handleLimit, null);
+        freeHandleCount = 0;
+        handleLimit = 0;
+    }
+
+    /**
+     * Looks up the handle of a lowercase name.
+     *
+     * @param lowerCaseName The lowercase name
+     * @return The handle, or {@link #NO_HANDLE} if the name is not registered
+     */
+    private int lookup(String lowerCaseName) {
+        Integer handle = handlesByLowerCaseName.get(lowerCaseName);
+        return handle == null ? NO_HANDLE : handle;
+    }
+
+    /**
+     * Unregisters a lowercase name and makes its handle available for reuse.
+     *
+     * @param lowerCaseName The lowercase name
+     * @return true if the name was registered, false otherwise
+     */
+    private boolean release(String lowerCaseName) {
+        Integer handle = handlesByLowerCaseName.remove(lowerCaseName);
+        if (handle == null) {
+            return false;
+        }
+        nodesByHandle[handle] = null;
+        if (freeHandleCount == freeHandles.length) {
+            freeHandles = Arrays.copyOf(freeHandles, 2 * freeHandles.length);
+        }
+        freeHandles[freeHandleCount++] = handle;
+        return true;
     }
 }
\ No newline at end of file
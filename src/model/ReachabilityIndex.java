@@ -0,0 +1,305 @@
+package model;
+
+import util.CompressedBitmap;
+
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.PrimitiveIterator;
+
+import static model.ReachabilityIndexConstants.MAX_BYTES;
+import static model.ReachabilityIndexConstants.MAX_CLOSURES;
+
+/**
+ * Index of transitive closures over selected relationship types.
+ * For a tracked relationship type, the closure of a node is the set of all products
+ * reachable from it by following edges of that type through products, excluding the node itself.
+ * Closures are stored as bitmaps of product IDs, so they take part in the bitmap algebra of queries
+ * without being converted. A stored bitmap is never modified; an update replaces it with a new one.
+ * Closures are computed by the caller on the first query and kept up to date as edges change:
+ * an added edge is merged into the affected closures where possible, a removed edge
+ * invalidates the closures that may have depended on it. The closures containing a product are
+ * looked up in a reverse index, so a change only touches the closures it affects.
+ * When the number of closures of a relationship type or their size exceeds the limits,
+ * the least recently used closures are evicted.
+ * The index is synchronized, since closures are added by queries that may run in parallel.
+ *
+ * @author uuifx
+ */
+class ReachabilityIndex {
+    private final Graph graph;
+    private final Map<RelationshipTypes, Closures> closures = new EnumMap<>(RelationshipTypes.class);
+
+    /**
+     * Creates a new index for the given relationship types.
+     *
+     * @param graph The graph whose edges are indexed
+     * @param trackedRelationships The relationship types to index
+     */
+    ReachabilityIndex(Graph graph, RelationshipTypes... trackedRelationships) {
+        this.graph = graph;
+        for (RelationshipTypes relationship : trackedRelationships) {
+            closures.put(relationship, new Closures());
+        }
+    }
+
+    /**
+     * Gets the indexed closure of a node.
+     *
+     * @param handle The handle of the node
+     * @param relationship The relationship type
+     * @return The product IDs of the closure, which must not be modified, or null if it is not indexed
+     */
+    synchronized CompressedBitmap get(int handle, RelationshipTypes relationship) {
+        Closures entries = closures.get(relationship);
+        return entries == null ? null : entries.get(handle);
+    }
+
+    /**
+     * Stores the closure of a node. Closures of untracked relationship types are ignored.
+     *
+     * @param handle The handle of the node
+     * @param relationship The relationship type
+     * @param closureIds The product IDs of the closure, which must not be modified afterwards
+     */
+    synchronized void put(int handle, RelationshipTypes relationship, CompressedBitmap closureIds) {
+        Closures entries = closures.get(relationship);
+        if (entries != null) {
+            entries.put(handle, closureIds);
+        }
+    }
+
+    /**
+     * Updates the closures after a canonical edge and thereby its inverse were added.
+     *
+     * @param edge The added canonical edge
+     */
+    synchronized void edgeAdded(Edge edge) {
+        edgeAdded(edge.getSource(), edge.getTarget(), edge.getRelationship());
+        edgeAdded(edge.getTarget(), edge.getSource(), edge.getRelationship().getInverse());
+    }
+
+    /**
+     * Updates the closures after a canonical edge and thereby its inverse were removed.
+     *
+     * @param edge The removed canonical edge
+     */
+    synchronized void edgeRemoved(Edge edge) {
+        invalidateReaching(edge.getSource(), edge.getRelationship());
+        invalidateReaching(edge.getTarget(), edge.getRelationship().getInverse());
+    }
+
+    /**
+     * Drops the closures of a node that is removed from the graph.
+     *
+     * @param handle The handle of the removed node
+     */
+    synchronized void nodeRemoved(int handle) {
+        for (Closures entries : closures.values()) {
+            entries.remove(handle);
+        }
+    }
+
+    /**
+     * Drops all closures.
+     */
+    synchronized void clear() {
+        for (Closures entries : closures.values()) {
+            entries.clear();
+        }
+    }
+
+    /**
+     * Merges a new edge from one node to another into every closure that reaches its source.
+     * A closure is invalidated instead if the closure of the target is not known.
+     *
+     * @param source The source node of the edge
+     * @param target The target node of the edge
+     * @param relationship The relationship type of the edge
+     */
+    private void edgeAdded(Node source, Node target, RelationshipTypes relationship) {
+        Closures entries = closures.get(relationship);
+        if (entries == null || entries.isEmpty() || !target.isProduct()) {
+            return;
+        }
+
+        int targetHandle = graph.getHandle(target);
+        CompressedBitmap targetClosure = entries.get(targetHandle);
+        if (targetClosure == null && graph.getOutgoingEdgesByRelationship(targetHandle, relationship).isEmpty()) {
+            targetClosure = new CompressedBitmap();
+        }
+
+        for (int handle : entries.getHandlesReaching(source, graph.getHandle(source))) {
+            CompressedBitmap closure = entries.get(handle);
+            if (closure == null) {
+                // Evicted by a closure merged before
+                continue;
+            }
+            if (targetClosure == null) {
+                entries.remove(handle);
+                continue;
+            }
+            CompressedBitmap merged = closure.or(targetClosure);
+            merged.add(((Product) target).getId());
+            Node node = graph.getNode(handle);
+            if (node.isProduct()) {
+                merged.remove(((Product) node).getId());
+            }
+            entries.put(handle, merged);
+        }
+    }
+
+    /**
+     * Invalidates every closure that reaches the given node.
+     *
+     * @param source The source node of a removed edge
+     * @param relationship The relationship type of the removed edge
+     */
+    private void invalidateReaching(Node source, RelationshipTypes relationship) {
+        Closures entries = closures.get(relationship);
+        if (entries == null || entries.isEmpty()) {
+            return;
+        }
+
+        for (int handle : entries.getHandlesReaching(source, graph.getHandle(source))) {
+            entries.remove(handle);
+        }
+    }
+
+    /**
+     * The bounded closures of one relationship type, with a reverse index from each product ID
+     * to the handles of the nodes whose closures contain it.
+     */
+    private static final class Closures {
+        // Iterates from the least to the most recently used closure
+        private final Map<Integer, CompressedBitmap> closuresByHandle = new LinkedHashMap<>(16, 0.75f, true);
+        private final Map<Integer, CompressedBitmap> handlesByProductId = new HashMap<>();
+        private long totalBytes;
+
+        /**
+         * Checks if no closure is stored.
+         *
+         * @return true if there are no closures, false otherwise
+         */
+        boolean isEmpty() {
+            return closuresByHandle.isEmpty();
+        }
+
+        /**
+         * Gets the closure of a node and marks it as recently used.
+         *
+         * @param handle The handle of the node
+         * @return The product IDs of the closure, or null if it is not stored
+         */
+        CompressedBitmap get(int handle) {
+            return closuresByHandle.get(handle);
+        }
+
+        /**
+         * Stores or replaces the closure of a node and evicts the least recently used closures
+         * while the limits are exceeded. A closure larger than the size limit is not stored.
+         *
+         * @param handle The handle of the node
+         * @param closureIds The product IDs of the closure
+         */
+        void put(int handle, CompressedBitmap closureIds) {
+            CompressedBitmap previous = closuresByHandle.get(handle);
+            if (previous != null && closureIds.getSizeInBytes() <= MAX_BYTES) {
+                // Only register the difference, since merged closures mostly grow by a few products
+                closuresByHandle.put(handle, closureIds);
+                totalBytes += closureIds.getSizeInBytes() - previous.getSizeInBytes();
+                unregister(handle, previous.andNot(closureIds));
+                register(handle, closureIds.andNot(previous));
+            } else {
+                remove(handle);
+                if (closureIds.getSizeInBytes() > MAX_BYTES) {
+                    return;
+                }
+                closuresByHandle.put(handle, closureIds);
+                totalBytes += closureIds.getSizeInBytes();
+                register(handle, closureIds);
+            }
+
+            while (closuresByHandle.size() > MAX_CLOSURES || totalBytes > MAX_BYTES) {
+                remove(closuresByHandle.keySet().iterator().next());
+            }
+        }
+
+        /**
+         * Removes the closure of a node if it is stored.
+         *
+         * @param handle The handle of the node
+         */
+        void remove(int handle) {
+            CompressedBitmap closureIds = closuresByHandle.remove(handle);
+            if (closureIds != null) {
+                totalBytes -= closureIds.getSizeInBytes();
+                unregister(handle, closureIds);
+            }
+        }
+
+        /**
+         * Removes all closures.
+         */
+        void clear() {
+            closuresByHandle.clear();
+            handlesByProductId.clear();
+            totalBytes = 0;
+        }
+
+        /**
+         * Gets the handles of the nodes whose closures reach a node, including the node itself
+         * if its closure is stored.
+         *
+         * @param node The node
+         * @param handle The handle of the node
+         * @return A new array of the handles
+         */
+        int[] getHandlesReaching(Node node, int handle) {
+            CompressedBitmap handles = node.isProduct() ? handlesByProductId.get(((Product) node).getId()) : null;
+            handles = handles == null ? new CompressedBitmap() : handles.copy();
+            if (closuresByHandle.containsKey(handle)) {
+                handles.add(handle);
+            }
+            return handles.toArray();
+        }
+
+        /**
+         * Records that the closure of a node contains the given products.
+         *
+         * @param handle The handle of the node
+         * @param productIds The IDs of the products
+         */
+        private void register(int handle, CompressedBitmap productIds) {
+            PrimitiveIterator.OfInt iterator = productIds.iterator();
+            while (iterator.hasNext()) {
+                int productId = iterator.nextInt();
+                CompressedBitmap handles = handlesByProductId.get(productId);
+                if (handles == null) {
+                    handles = new CompressedBitmap();
+                    handlesByProductId.put(productId, handles);
+                }
+                handles.add(handle);
+            }
+        }
+
+        /**
+         * Records that the closure of a node no longer contains the given products.
+         *
+         * @param handle The handle of the node
+         * @param productIds The IDs of the products
+         */
+        private void unregister(int handle, CompressedBitmap productIds) {
+            PrimitiveIterator.OfInt iterator = productIds.iterator();
+            while (iterator.hasNext()) {
+                int productId = iterator.nextInt();
+                CompressedBitmap handles = handlesByProductId.get(productId);
+                handles.remove(handle);
+                if (handles.isEmpty()) {
+                    handlesByProductId.remove(productId);
+                }
+            }
+        }
+    }
+}
\ No newline at end of file
@@ -0,0 +1,24 @@
+package model;
+
+/**
+ * Constants used in the ReachabilityIndex class.
+ * @author uuifx
+ */
+public final class ReachabilityIndexConstants {
+    /**
+     * Maximum number of indexed closures per relationship type.
+     */
+    public static final int MAX_CLOSURES = 4096;
+
+    /**
+     * Maximum size of all indexed closures of one relationship type in bytes.
+     */
+    public static final long MAX_BYTES = 16L * 1024 * 1024;
+
+    /**
+     * Private constructor to prevent instantiation.
+     */
+    private ReachabilityIndexConstants() {
+        // Utility class should not be instantiated
+    }
+}
\ No newline at end of file
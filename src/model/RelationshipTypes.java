@@ -92,6 +92,23 @@ public enum RelationshipTypes {
         }
     }
 
+    /**
+     * Checks if this relationship type is the canonical one of its inverse pair.
+     * Only edges with a canonical relationship type are stored, their inverses are derived.
+     *
+     * @return true if this relationship type is canonical, false otherwise
+     */
+    public boolean isCanonical() {
+        switch (this) {
+            case CONTAINS:
+            case PART_OF:
+            case SUCCESSOR_OF:
+                return true;
+            default:
+                return false;
+        }
+    }
+
     /**
      * Gets a relationship type by its name.
      *
@@ -65,6 +65,12 @@ public class CommandParser {
                 break;
             case CLI.RECOMMEND:
                 return CommandType.RECOMMEND;
+            case CLI.EXPLAIN:
+                return CommandType.EXPLAIN;
+            case CLI.BATCH:
+                return CommandType.BATCH;
+            case CLI.TOP:
+                return CommandType.TOP;
             case CLI.EXPORT:
                 // Export should have no additional arguments
                 if (parts.length == 1) {
@@ -46,6 +46,21 @@ public enum CommandType {
      */
     EXPORT,
 
+    /**
+     * Command to show how a recommend command would be evaluated.
+     */
+    EXPLAIN,
+
+    /**
+     * Command to get the recommendations of one strategy for many reference products.
+     */
+    BATCH,
+
+    /**
+     * Command to get the best recommendations of a recommend command.
+     */
+    TOP,
+
     /**
      * Represents an unrecognized or invalid command.
      */
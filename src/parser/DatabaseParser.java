@@ -12,7 +12,9 @@ import util.Constants.Regex;
 import java.io.BufferedReader;
 import java.io.FileReader;
 import java.io.IOException;
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
@@ -31,6 +33,10 @@ import static parser.DatabaseParserConstants.SUBJECT_GROUP;
  * @author uuifx
  */
 public class DatabaseParser {
+    private static final Pattern LINE_PATTERN = Pattern.compile(Regex.LINE_REGEX);
+    private static final Pattern PRODUCT_PATTERN = Pattern.compile(Regex.PRODUCT_REGEX);
+    private static final Pattern CATEGORY_PATTERN = Pattern.compile(Regex.CATEGORY_REGEX);
+
     private final Graph graph;
     // Map to track product IDs and their corresponding names during parsing
     private final Map<Integer, String> productIdMap = new HashMap<>();
@@ -56,48 +62,75 @@ public class DatabaseParser {
      */
     public void parseFile(String filePath) throws IOException {
         try (BufferedReader reader = new BufferedReader(new FileReader(filePath))) {
-            String line;
-            int lineNumber = 0;
-
-            // First pass: validate the entire file for duplicate product IDs
-            while ((line = reader.readLine()) != null) {
-                lineNumber++;
-                if (line.trim().isEmpty()) {
-                    continue; // Skip empty lines
-                }
+            parse(reader, false);
+        }
+    }
 
-                // Validate the line syntax
-                Pattern pattern = Pattern.compile(Regex.LINE_REGEX);
-                Matcher matcher = pattern.matcher(line);
+    /**
+     * Parses a database and builds the graph in a single pass, validating each line before it is added.
+     * Messages about skipped lines are printed after the whole input was read, so they follow the echoed lines.
+     * If a line is invalid, the rest of the input is still read to echo it and to report a duplicate product ID,
+     * which takes precedence over other errors. The graph is then cleared, so a database is loaded completely
+     * or not at all.
+     *
+     * @param reader The reader of the database
+     * @param echo Whether to print every line as it is read
+     * @throws IOException If an I/O error occurs
+     * @throws IllegalArgumentException If the content is invalid
+     */
+    public void parse(BufferedReader reader, boolean echo) throws IOException {
+        productIdMap.clear();
+        List<String> messages = new ArrayList<>();
+        IllegalArgumentException validationError = null;
+        IllegalArgumentException graphError = null;
+        String line;
+        int lineNumber = 0;
+        while ((line = reader.readLine()) != null) {
+            lineNumber++;
+            if (echo) {
+                System.out.println(line);
+            }
+            if (validationError != null || line.trim().isEmpty()) {
+                continue; // Skip empty lines and everything after an invalid line
+            }
 
+            // Validate the line syntax and check subject and object for duplicate IDs
+            Matcher matcher = LINE_PATTERN.matcher(line);
+            try {
                 if (!matcher.matches()) {
                     throw new IllegalArgumentException(Error.INVALID_LINE_FORMAT + line);
                 }
-
-                String subject = matcher.group(SUBJECT_GROUP).trim();
-                String object = matcher.group(OBJECT_GROUP).trim();
-
-                // Check subject for duplicate ID
-                validateForDuplicateId(subject, lineNumber);
-
-                // Check object for duplicate ID
-                validateForDuplicateId(object, lineNumber);
+                validateForDuplicateId(matcher.group(SUBJECT_GROUP).trim(), lineNumber);
+                validateForDuplicateId(matcher.group(OBJECT_GROUP).trim(), lineNumber);
+            } catch (IllegalArgumentException e) {
+                validationError = e;
+                continue;
             }
 
-            // If validation passes, reset and actually parse the file
-            productIdMap.clear();
-            reader.close();
-
-            // Now parse the file to build the graph
-            try (BufferedReader parseReader = new BufferedReader(new FileReader(filePath))) {
-                while ((line = parseReader.readLine()) != null) {
-                    if (line.trim().isEmpty()) {
-                        continue; // Skip empty lines
+            // Add the valid line unless an earlier line could not be added
+            if (graphError == null) {
+                try {
+                    String message = addRelationship(matcher);
+                    if (message != null) {
+                        messages.add(message);
                     }
-                    parseLine(line);
+                } catch (IllegalArgumentException e) {
+                    graphError = e;
                 }
             }
         }
+
+        if (validationError != null) {
+            graph.clear();
+            throw validationError;
+        }
+        for (String message : messages) {
+            System.out.println(message);
+        }
+        if (graphError != null) {
+            graph.clear();
+            throw graphError;
+        }
     }
 
     /**
@@ -109,8 +142,7 @@ public class DatabaseParser {
      */
     private void validateForDuplicateId(String nodeStr, int lineNumber) {
         // Try to parse as a product
-        Pattern productPattern = Pattern.compile(Regex.PRODUCT_REGEX);
-        Matcher productMatcher = productPattern.matcher(nodeStr);
+        Matcher productMatcher = PRODUCT_PATTERN.matcher(nodeStr);
 
         if (productMatcher.matches()) {
             String name = productMatcher.group(NAME_GROUP);
@@ -136,13 +168,26 @@ public class DatabaseParser {
      * @throws IllegalArgumentException If the line is invalid
      */
     public void parseLine(String line) {
-        Pattern pattern = Pattern.compile(Regex.LINE_REGEX);
-        Matcher matcher = pattern.matcher(line);
+        Matcher matcher = LINE_PATTERN.matcher(line);
 
         if (!matcher.matches()) {
             throw new IllegalArgumentException(Error.INVALID_LINE_FORMAT + line);
         }
 
+        String message = addRelationship(matcher);
+        if (message != null) {
+            System.out.println(message);
+        }
+    }
+
+    /**
+     * Adds the relationship of a matched line and its nodes to the graph.
+     *
+     * @param matcher The matcher that matched the line
+     * @return The message why the line was skipped, or null if it was added
+     * @throws IllegalArgumentException If the line is invalid
+     */
+    private String addRelationship(Matcher matcher) {
         String subject = matcher.group(SUBJECT_GROUP).trim();
         String predicate = matcher.group(PREDICATE_GROUP).trim();
         String object = matcher.group(OBJECT_GROUP).trim();
@@ -163,9 +208,8 @@ public class DatabaseParser {
             if (existingNode != null && existingNode.isProduct()
                     &&
                     ((Product) existingNode).getId() != sourceProduct.getId()) {
-                System.out.println(Error.PREFIX + Constants.Error.PRODUCT_NAME + sourceNode.getName()
-                        + Constants.Error.EXISTS_WITH_DIFFERENT_ID);
-                return;
+                return Error.PREFIX + Constants.Error.PRODUCT_NAME + sourceNode.getName()
+                        + Constants.Error.EXISTS_WITH_DIFFERENT_ID;
             }
         }
 
@@ -174,9 +218,8 @@ public class DatabaseParser {
             Node existingNode = graph.getNodeByName(targetNode.getName());
             if (existingNode != null && existingNode.isProduct()
                     && ((Product) existingNode).getId() != targetProduct.getId()) {
-                System.out.println(Error.PREFIX + Constants.Error.PRODUCT_NAME + targetNode.getName()
-                        + Constants.Error.EXISTS_WITH_DIFFERENT_ID);
-                return;
+                return Error.PREFIX + Constants.Error.PRODUCT_NAME + targetNode.getName()
+                        + Constants.Error.EXISTS_WITH_DIFFERENT_ID;
             }
         }
 
@@ -194,6 +237,7 @@ public class DatabaseParser {
         if (!graph.addEdge(edge)) {
             throw new IllegalArgumentException(Constants.Error.FAILED_TO_ADD_EDGE + edge);
         }
+        return null;
     }
     /**
      * Parses a node description (product or category).
@@ -203,8 +247,7 @@ public class DatabaseParser {
      */
     private Node parseNode(String nodeStr) {
         // Try to parse as a product
-        Pattern productPattern = Pattern.compile(Regex.PRODUCT_REGEX);
-        Matcher productMatcher = productPattern.matcher(nodeStr);
+        Matcher productMatcher = PRODUCT_PATTERN.matcher(nodeStr);
 
         if (productMatcher.matches()) {
             String name = productMatcher.group(NAME_GROUP);
@@ -213,8 +256,7 @@ public class DatabaseParser {
         }
 
         // Try to parse as a category
-        Pattern categoryPattern = Pattern.compile(Regex.CATEGORY_REGEX);
-        Matcher categoryMatcher = categoryPattern.matcher(nodeStr);
+        Matcher categoryMatcher = CATEGORY_PATTERN.matcher(nodeStr);
 
         if (categoryMatcher.matches()) {
             String name = categoryMatcher.group(NAME_GROUP);
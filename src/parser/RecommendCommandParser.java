@@ -1,5 +1,6 @@
 package parser;
 
+import util.CommandValidationUtils;
 import util.Constants;
 import util.Constants.CLI;
 import util.Constants.Error;
@@ -11,7 +12,10 @@ import static parser.RecommendCommandParserConstants.OPEN_PAREN;
 import static parser.RecommendCommandParserConstants.COMMA;
 import static parser.RecommendCommandParserConstants.CLOSE_PAREN;
 import static parser.RecommendCommandParserConstants.COMMAND_PARTS;
+import static parser.RecommendCommandParserConstants.DEFAULT_LEVELS;
+import static parser.RecommendCommandParserConstants.EXCEPT_LENGTH;
 import static parser.RecommendCommandParserConstants.INTERSECTION_LENGTH;
+import static parser.RecommendCommandParserConstants.LEVELS_LENGTH;
 import static parser.RecommendCommandParserConstants.STRATEGY_LENGTH;
 import static parser.RecommendCommandParserConstants.UNION_LENGTH;
 /**
@@ -56,18 +60,21 @@ public class RecommendCommandParser {
 
     /**
      * Parses a term in the grammar.
-     * term ::= final | INTERSECTION(term, term) | UNION(term, term)
+     * term ::= final | INTERSECTION(term, term) | UNION(term, term) | EXCEPT(term, term)
      */
     private RecommendTerm parseTerm() {
         skipWhitespace();
 
-        // Try to parse INTERSECTION or UNION
+        // Try to parse INTERSECTION, UNION or EXCEPT
         if (position + INTERSECTION_LENGTH <= input.length()
                 && input.substring(position, position + INTERSECTION_LENGTH).equalsIgnoreCase(Strategy.INTERSECTION)) {
             return parseIntersection();
         } else if (position + UNION_LENGTH <= input.length()
                 && input.substring(position, position + UNION_LENGTH).equalsIgnoreCase(Strategy.UNION)) {
             return parseUnion();
+        } else if (position + EXCEPT_LENGTH <= input.length()
+                && input.substring(position, position + EXCEPT_LENGTH).equalsIgnoreCase(Strategy.EXCEPT)) {
+            return parseExcept();
         } else {
             // Must be a final term
             return parseFinal();
@@ -154,9 +161,50 @@ public class RecommendCommandParser {
         return new UnionTerm(left, right);
     }
 
+    /**
+     * Parses an EXCEPT term.
+     * EXCEPT(term, term)
+     */
+    private RecommendTerm parseExcept() {
+        // Consume "EXCEPT"
+        position += EXCEPT_LENGTH;
+        skipWhitespace();
+
+        // Expect a '('
+        if (position >= input.length() || input.charAt(position) != OPEN_PAREN) {
+            throw new IllegalArgumentException(Error.EXPECTED_OPEN_PAREN + Strategy.EXCEPT);
+        }
+        position++;
+
+        // Parse the term to keep products from
+        skipWhitespace();
+        RecommendTerm left = parseTerm();
+
+        // Expect a ','
+        skipWhitespace();
+        if (position >= input.length() || input.charAt(position) != COMMA) {
+            throw new IllegalArgumentException(Error.EXPECTED_COMMA + Strategy.EXCEPT);
+        }
+        position++;
+
+        // Parse the term whose products are removed
+        skipWhitespace();
+        RecommendTerm right = parseTerm();
+
+        // Expect a ')'
+        skipWhitespace();
+        if (position >= input.length() || input.charAt(position) != CLOSE_PAREN) {
+            throw new IllegalArgumentException(Error.EXPECTED_CLOSE_PAREN + Strategy.EXCEPT);
+        }
+        position++;
+
+        return new ExceptTerm(left, right);
+    }
+
     /**
      * Parses a final term.
-     * final ::= strategy productid
+     * final ::= strategy productid [LEVELS levels]
+     * The levels clause is only allowed for the sibling strategy.
      */
     private RecommendTerm parseFinal() {
         skipWhitespace();
@@ -170,7 +218,9 @@ public class RecommendCommandParser {
         if (position + STRATEGY_LENGTH <= input.length()
                 && (input.substring(position, position + STRATEGY_LENGTH).equals(Strategy.S1)
                 || input.substring(position, position + STRATEGY_LENGTH).equals(Strategy.S2)
-                || input.substring(position, position + STRATEGY_LENGTH).equals(Strategy.S3))) {
+                || input.substring(position, position + STRATEGY_LENGTH).equals(Strategy.S3)
+                || input.substring(position, position + STRATEGY_LENGTH).equals(Strategy.S4)
+                || input.substring(position, position + STRATEGY_LENGTH).equals(Strategy.S5))) {
 
             String strategy = input.substring(position, position + STRATEGY_LENGTH);
             position += STRATEGY_LENGTH;
@@ -190,7 +240,32 @@ public class RecommendCommandParser {
 
             int productId = Integer.parseInt(input.substring(startPos, position));
 
-            return new FinalTerm(strategy, productId);
+            // Parse the optional number of category levels, whose keyword is separated by whitespace
+            int afterProductId = position;
+            skipWhitespace();
+            if (!strategy.equals(Strategy.S1) || position == afterProductId
+                    || position + LEVELS_LENGTH > input.length()
+                    || !input.substring(position, position + LEVELS_LENGTH).equalsIgnoreCase(Strategy.LEVELS)) {
+                position = afterProductId;
+                return new FinalTerm(strategy, productId);
+            }
+            position += LEVELS_LENGTH;
+            int afterLevels = position;
+            skipWhitespace();
+            startPos = position;
+            while (position < input.length() && Character.isDigit(input.charAt(position))) {
+                position++;
+            }
+            if (startPos == afterLevels || startPos == position) {
+                throw new IllegalArgumentException(Error.EXPECTED_LEVELS);
+            }
+            // More levels than the category hierarchy is high add nothing, so larger counts are capped
+            int levels = CommandValidationUtils.parseCappedCount(input.substring(startPos, position));
+            if (levels < DEFAULT_LEVELS) {
+                throw new IllegalArgumentException(Error.EXPECTED_LEVELS);
+            }
+
+            return new FinalTerm(strategy, productId, levels);
         } else {
             throw new IllegalArgumentException(Error.EXPECTED_STRATEGY);
         }
@@ -224,6 +299,7 @@ public class RecommendCommandParser {
     public static class FinalTerm extends RecommendTerm {
         private final String strategy;
         private final int productId;
+        private final int levels;
 
         /**
          * Creates a new final term with the specified strategy and product ID.
@@ -232,8 +308,20 @@ public class RecommendCommandParser {
          * @param productId the ID of the product
          */
         public FinalTerm(String strategy, int productId) {
+            this(strategy, productId, DEFAULT_LEVELS);
+        }
+
+        /**
+         * Creates a new final term with the specified strategy, product ID and number of category levels.
+         *
+         * @param strategy the recommendation strategy
+         * @param productId the ID of the product
+         * @param levels the number of category levels above the product to recommend siblings from
+         */
+        public FinalTerm(String strategy, int productId, int levels) {
             this.strategy = strategy;
             this.productId = productId;
+            this.levels = levels;
         }
 
         /**
@@ -254,9 +342,21 @@ public class RecommendCommandParser {
             return productId;
         }
 
+        /**
+         * Gets the number of category levels for this term.
+         *
+         * @return the number of category levels, 1 unless a levels clause was given
+         */
+        public int getLevels() {
+            return levels;
+        }
+
         @Override
         public String toString() {
-            return strategy + CLI.SPACE + productId;
+            if (levels == DEFAULT_LEVELS) {
+                return strategy + CLI.SPACE + productId;
+            }
+            return strategy + CLI.SPACE + productId + CLI.SPACE + Strategy.LEVELS + CLI.SPACE + levels;
         }
     }
 
@@ -343,4 +443,46 @@ public class RecommendCommandParser {
                     + RecommendCommandParserConstants.TERM_SEPARATOR + right + RecommendCommandParserConstants.CLOSE_PAREN;
         }
     }
+
+    /**
+     * Except term representing the products of one term that are not products of another term.
+     */
+    public static class ExceptTerm extends RecommendTerm {
+        private final RecommendTerm left;
+        private final RecommendTerm right;
+
+        /**
+         * Creates a new except term with the specified left and right terms.
+         *
+         * @param left the term to keep products from
+         * @param right the term whose products are removed
+         */
+        public ExceptTerm(RecommendTerm left, RecommendTerm right) {
+            this.left = left;
+            this.right = right;
+        }
+
+        /**
+         * Gets the left term of this difference, whose products are kept.
+         *
+         * @return the left term
+         */
+        public RecommendTerm getLeft() {
+            return left;
+        }
+
+        /**
+         * Gets the right term of this difference, whose products are removed.
+         *
+         * @return the right term
+         */
+        public RecommendTerm getRight() {
+            return right;
+        }
+
+        @Override
+        public String toString() {
+            return Strategy.EXCEPT + OPEN_PAREN + left + RecommendCommandParserConstants.TERM_SEPARATOR + right + CLOSE_PAREN;
+        }
+    }
 }
\ No newline at end of file
@@ -35,6 +35,16 @@ public final class RecommendCommandParserConstants {
      */
     public static final int UNION_LENGTH = 5;
 
+    /**
+     * The length of the EXCEPT keyword.
+     */
+    public static final int EXCEPT_LENGTH = 6;
+
+    /**
+     * The length of the LEVELS keyword.
+     */
+    public static final int LEVELS_LENGTH = 6;
+
     /**
      * Open parenthesis character.
      */
@@ -55,6 +65,11 @@ public final class RecommendCommandParserConstants {
      */
     public static final String TERM_SEPARATOR = ", ";
 
+    /**
+     * The number of category levels of a sibling term without a levels clause.
+     */
+    public static final int DEFAULT_LEVELS = 1;
+
     /**
      * Private constructor to prevent instantiation.
      */
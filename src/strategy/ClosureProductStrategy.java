@@ -0,0 +1,106 @@
+package strategy;
+
+import model.Graph;
+import model.Product;
+import model.RelationshipTypes;
+import util.CompressedBitmap;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.PrimitiveIterator;
+import java.util.Set;
+
+/**
+ * Base class for strategies that recommend the transitive closure of the reference product,
+ * that is all products reachable from it by following edges of one relationship type through products.
+ * Closures are served from the graph's closure index, which keeps them up to date once computed
+ * and stores them as bitmaps of product IDs. Indexed and newly computed closures alike are returned
+ * as bitmaps that are never modified afterwards, and as new product sets.
+ *
+ * @author uuifx
+ */
+public abstract class ClosureProductStrategy implements RankedRecommendationStrategy {
+    private final RelationshipTypes relationship;
+
+    /**
+     * Creates a new closure strategy.
+     *
+     * @param relationship The relationship type to follow
+     */
+    protected ClosureProductStrategy(RelationshipTypes relationship) {
+        this.relationship = relationship;
+    }
+
+    /**
+     * Gets the relationship type this strategy follows.
+     *
+     * @return The relationship type
+     */
+    public RelationshipTypes getRelationship() {
+        return relationship;
+    }
+
+    @Override
+    public Set<Product> getRecommendations(int referenceProductId, Graph graph) {
+        return ProductBitmaps.toProducts(getRecommendationIds(referenceProductId, graph), graph);
+    }
+
+    @Override
+    public CompressedBitmap getRecommendationIds(int referenceProductId, Graph graph) {
+        // Find the reference product
+        Product referenceProduct = graph.getProductById(referenceProductId);
+        if (referenceProduct == null) {
+            return new CompressedBitmap();
+        }
+
+        // Serve the closure from the graph's closure index if possible
+        int referenceHandle = graph.getHandle(referenceProduct);
+        CompressedBitmap indexed = graph.getIndexedClosure(referenceHandle, relationship);
+        if (indexed != null) {
+            return indexed;
+        }
+
+        CompressedBitmap recommendationIds = TraversalEngine.forCurrentThread()
+                .collectReachableProductIds(graph, referenceHandle, relationship);
+        graph.indexClosure(referenceHandle, relationship, recommendationIds);
+
+        return recommendationIds;
+    }
+
+    @Override
+    public CompressedBitmap[] getRecommendationIds(int[] referenceProductIds, Graph graph) {
+        // Traverse once for all reference products, sharing the closures of the products they have in common
+        return TraversalEngine.forCurrentThread().collectReachableProductIds(graph,
+                ProductBitmaps.toHandles(referenceProductIds, graph), relationship);
+    }
+
+    @Override
+    public List<Product> getTopRecommendations(int referenceProductId, Graph graph, int limit) {
+        Product referenceProduct = graph.getProductById(referenceProductId);
+        if (referenceProduct == null) {
+            return new ArrayList<>();
+        }
+
+        // Directly related products rank before indirectly related ones
+        return TraversalEngine.forCurrentThread()
+                .collectNearestProducts(graph, graph.getHandle(referenceProduct), relationship, limit);
+    }
+
+    @Override
+    public CompressedBitmap getRecommendationIds(int referenceProductId, Graph graph, DependencyFootprint footprint) {
+        footprint.addProductId(referenceProductId);
+        CompressedBitmap recommendationIds = getRecommendationIds(referenceProductId, graph);
+        Product referenceProduct = graph.getProductById(referenceProductId);
+        if (referenceProduct == null) {
+            return recommendationIds;
+        }
+
+        // The traversal reads the followed edges of the reference product and of every product it reaches
+        footprint.addRead(referenceProduct, relationship);
+        PrimitiveIterator.OfInt iterator = recommendationIds.iterator();
+        while (iterator.hasNext()) {
+            footprint.addRead(graph.getProductById(iterator.nextInt()), relationship);
+        }
+        return recommendationIds;
+    }
+}
\ No newline at end of file
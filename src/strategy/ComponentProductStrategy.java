@@ -0,0 +1,19 @@
+package strategy;
+
+import model.RelationshipTypes;
+
+/**
+ * Strategy for recommending component products (S4).
+ * Finds all direct and indirect parts of the reference product, its bill of materials.
+ *
+ * @author uuifx
+ */
+public class ComponentProductStrategy extends ClosureProductStrategy {
+
+    /**
+     * Creates a new component strategy, which follows the outgoing has-part edges.
+     */
+    public ComponentProductStrategy() {
+        super(RelationshipTypes.HAS_PART);
+    }
+}
\ No newline at end of file
@@ -0,0 +1,30 @@
+package strategy;
+
+import util.CompressedBitmap;
+
+import java.util.List;
+
+/**
+ * Strategy that combines the results of other strategies, its operands.
+ * Evaluating the operands and combining their results can thus be done in separate steps.
+ *
+ * @author uuifx
+ */
+interface CompositeStrategy extends RecommendationStrategy {
+
+    /**
+     * Combines the results of the operands.
+     *
+     * @param operandIds The product IDs recommended by each operand, in operand order
+     * @return A bitmap of the IDs of the recommended products, which may be shared and must not be modified
+     */
+    CompressedBitmap combine(List<CompressedBitmap> operandIds);
+
+    /**
+     * Checks if the result is empty whenever the first operand recommends nothing,
+     * so the other operands need not be evaluated in that case.
+     *
+     * @return true if an empty first operand makes the result empty, false otherwise
+     */
+    boolean isEmptyForEmptyFirstOperand();
+}
\ No newline at end of file
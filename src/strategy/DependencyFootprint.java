@@ -0,0 +1,96 @@
+package strategy;
+
+import model.Node;
+import model.RelationshipTypes;
+
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * The parts of a graph a recommendation result was computed from: the product IDs that were
+ * looked up and, per relationship type, the nodes whose outgoing edges of that type were read.
+ * The result stays valid as long as none of these parts changes.
+ *
+ * @author uuifx
+ */
+public class DependencyFootprint {
+    private final Map<RelationshipTypes, Set<Node>> readNodes = new EnumMap<>(RelationshipTypes.class);
+    private final Set<Integer> productIds = new HashSet<>();
+
+    /**
+     * Records that the outgoing edges of a node with the given relationship type were read.
+     *
+     * @param node The node
+     * @param relationship The relationship type
+     */
+    public void addRead(Node node, RelationshipTypes relationship) {
+        Set<Node> nodes = readNodes.get(relationship);
+        if (nodes == null) {
+            nodes = new HashSet<>();
+            readNodes.put(relationship, nodes);
+        }
+        nodes.add(node);
+    }
+
+    /**
+     * Records that a product was looked up by its ID.
+     *
+     * @param productId The ID of the product
+     */
+    public void addProductId(int productId) {
+        productIds.add(productId);
+    }
+
+    /**
+     * Records all dependencies of another footprint.
+     *
+     * @param other The other footprint
+     */
+    public void addAll(DependencyFootprint other) {
+        for (Map.Entry<RelationshipTypes, Set<Node>> entry : other.readNodes.entrySet()) {
+            Set<Node> nodes = readNodes.get(entry.getKey());
+            if (nodes == null) {
+                nodes = new HashSet<>();
+                readNodes.put(entry.getKey(), nodes);
+            }
+            nodes.addAll(entry.getValue());
+        }
+        productIds.addAll(other.productIds);
+    }
+
+    /**
+     * Gets the nodes whose outgoing edges of the given relationship type were read.
+     *
+     * @param relationship The relationship type
+     * @return An unmodifiable view of the nodes
+     */
+    public Set<Node> getReadNodes(RelationshipTypes relationship) {
+        Set<Node> nodes = readNodes.get(relationship);
+        return nodes == null ? Collections.<Node>emptySet() : Collections.unmodifiableSet(nodes);
+    }
+
+    /**
+     * Gets the product IDs that were looked up.
+     *
+     * @return An unmodifiable view of the product IDs
+     */
+    public Set<Integer> getProductIds() {
+        return Collections.unmodifiableSet(productIds);
+    }
+
+    /**
+     * Gets the number of recorded dependencies.
+     *
+     * @return The number of read node and relationship pairs plus the number of product IDs
+     */
+    public int size() {
+        int size = productIds.size();
+        for (Set<Node> nodes : readNodes.values()) {
+            size += nodes.size();
+        }
+        return size;
+    }
+}
\ No newline at end of file
@@ -0,0 +1,90 @@
+package strategy;
+
+import model.Graph;
+import model.Product;
+import util.CompressedBitmap;
+import util.Constants;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.PrimitiveIterator;
+import java.util.Set;
+
+/**
+ * Strategy that computes the difference of two other strategies: the products recommended by the
+ * first strategy that are not recommended by the second one.
+ * Each strategy is applied with its own reference product ID.
+ * The second strategy is only evaluated if the first one recommends anything.
+ *
+ * @author uuifx
+ */
+public class ExceptStrategy implements CompositeStrategy {
+    private final StrategyWithId kept;
+    private final StrategyWithId removed;
+
+    /**
+     * Creates a new difference strategy with the given strategies and their product IDs.
+     *
+     * @param keptStrategy The strategy whose products are kept
+     * @param keptProductId The product ID for the strategy whose products are kept
+     * @param removedStrategy The strategy whose products are removed
+     * @param removedProductId The product ID for the strategy whose products are removed
+     * @throws IllegalArgumentException if either strategy is null
+     */
+    public ExceptStrategy(RecommendationStrategy keptStrategy, int keptProductId,
+                          RecommendationStrategy removedStrategy, int removedProductId) {
+        if (keptStrategy == null || removedStrategy == null) {
+            throw new IllegalArgumentException(Constants.Error.STRATEGIES_MUST_NOT_BE_NULL);
+        }
+        this.kept = new StrategyWithId(keptStrategy, keptProductId);
+        this.removed = new StrategyWithId(removedStrategy, removedProductId);
+    }
+
+    @Override
+    public Set<Product> getRecommendations(int unusedProductId, Graph graph) {
+        return ProductBitmaps.toProducts(getRecommendationIds(unusedProductId, graph), graph);
+    }
+
+    @Override
+    public CompressedBitmap getRecommendationIds(int unusedProductId, Graph graph) {
+        // Use the stored product IDs, not the parameter
+        CompressedBitmap keptIds = kept.getStrategy().getRecommendationIds(kept.getProductId(), graph);
+        if (keptIds.isEmpty()) {
+            // Nothing can be removed from an empty result
+            return keptIds;
+        }
+        return combine(Arrays.asList(keptIds,
+                removed.getStrategy().getRecommendationIds(removed.getProductId(), graph)));
+    }
+
+    @Override
+    public PrimitiveIterator.OfInt iterateRecommendationIds(int unusedProductId, Graph graph) {
+        PrimitiveIterator.OfInt keptIds = kept.getStrategy().iterateRecommendationIds(kept.getProductId(), graph);
+        if (!keptIds.hasNext()) {
+            return keptIds;
+        }
+        return SortedIdIterators.difference(keptIds,
+                removed.getStrategy().iterateRecommendationIds(removed.getProductId(), graph));
+    }
+
+    @Override
+    public CompressedBitmap combine(List<CompressedBitmap> operandIds) {
+        return operandIds.get(0).andNot(operandIds.get(1));
+    }
+
+    @Override
+    public boolean isEmptyForEmptyFirstOperand() {
+        return true;
+    }
+
+    @Override
+    public CompressedBitmap getRecommendationIds(int unusedProductId, Graph graph, DependencyFootprint footprint) {
+        // An empty difference stays empty until the dependencies of the kept strategy change
+        CompressedBitmap keptIds = kept.getStrategy().getRecommendationIds(kept.getProductId(), graph, footprint);
+        if (keptIds.isEmpty()) {
+            return keptIds;
+        }
+        return combine(Arrays.asList(keptIds,
+                removed.getStrategy().getRecommendationIds(removed.getProductId(), graph, footprint)));
+    }
+}
\ No newline at end of file
@@ -2,22 +2,26 @@ package strategy;
 
 import model.Graph;
 import model.Product;
+import util.CompressedBitmap;
 import util.Constants;
 
-import java.util.HashSet;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.PrimitiveIterator;
 import java.util.Set;
 
 /**
- * Strategy that computes the intersection of two other strategies.
+ * Strategy that computes the intersection of other strategies.
  * Each strategy is applied with its own reference product ID.
+ * The strategies are evaluated in the given order, which should put the smallest results first,
+ * and the remaining strategies are skipped as soon as the intersection is empty.
  *
  * @author uuifx
  */
-public class IntersectionStrategy implements RecommendationStrategy {
-    private final RecommendationStrategy strategy1;
-    private final int productId1;
-    private final RecommendationStrategy strategy2;
-    private final int productId2;
+public class IntersectionStrategy implements CompositeStrategy {
+    private final List<StrategyWithId> operands;
 
     /**
      * Creates a new intersection strategy with the given strategies and their product IDs.
@@ -30,25 +34,91 @@ public class IntersectionStrategy implements RecommendationStrategy {
      */
     public IntersectionStrategy(RecommendationStrategy strategy1, int productId1,
                                 RecommendationStrategy strategy2, int productId2) {
-        if (strategy1 == null || strategy2 == null) {
+        this(Arrays.asList(new StrategyWithId(strategy1, productId1), new StrategyWithId(strategy2, productId2)));
+    }
+
+    /**
+     * Creates a new intersection strategy of any number of strategies with their product IDs.
+     *
+     * @param operands The strategies with their product IDs, in evaluation order
+     * @throws IllegalArgumentException if the list is null or empty or any of its strategies is null
+     */
+    public IntersectionStrategy(List<StrategyWithId> operands) {
+        if (operands == null) {
             throw new IllegalArgumentException(Constants.Error.STRATEGIES_MUST_NOT_BE_NULL);
         }
-        this.strategy1 = strategy1;
-        this.productId1 = productId1;
-        this.strategy2 = strategy2;
-        this.productId2 = productId2;
+        if (operands.isEmpty()) {
+            throw new IllegalArgumentException(Constants.Error.STRATEGIES_MUST_NOT_BE_EMPTY);
+        }
+        for (StrategyWithId operand : operands) {
+            if (operand == null || operand.getStrategy() == null) {
+                throw new IllegalArgumentException(Constants.Error.STRATEGIES_MUST_NOT_BE_NULL);
+            }
+        }
+        this.operands = Collections.unmodifiableList(new ArrayList<>(operands));
     }
 
     @Override
     public Set<Product> getRecommendations(int unusedProductId, Graph graph) {
+        return ProductBitmaps.toProducts(getRecommendationIds(unusedProductId, graph), graph);
+    }
+
+    @Override
+    public CompressedBitmap getRecommendationIds(int unusedProductId, Graph graph) {
         // Use the stored product IDs, not the parameter
-        Set<Product> recommendations1 = strategy1.getRecommendations(productId1, graph);
-        Set<Product> recommendations2 = strategy2.getRecommendations(productId2, graph);
+        CompressedBitmap intersection = null;
+        for (StrategyWithId operand : operands) {
+            CompressedBitmap recommendations = operand.getStrategy().getRecommendationIds(operand.getProductId(), graph);
+            intersection = intersection == null ? recommendations : intersection.and(recommendations);
+            if (intersection.isEmpty()) {
+                // The remaining strategies cannot contribute anything
+                break;
+            }
+        }
+        return intersection;
+    }
 
-        // Compute the intersection
-        Set<Product> intersection = new HashSet<>(recommendations1);
-        intersection.retainAll(recommendations2);
+    @Override
+    public PrimitiveIterator.OfInt iterateRecommendationIds(int unusedProductId, Graph graph) {
+        List<PrimitiveIterator.OfInt> iterators = new ArrayList<>(operands.size());
+        for (StrategyWithId operand : operands) {
+            PrimitiveIterator.OfInt iterator =
+                    operand.getStrategy().iterateRecommendationIds(operand.getProductId(), graph);
+            if (!iterator.hasNext()) {
+                // The remaining strategies cannot contribute anything
+                return iterator;
+            }
+            iterators.add(iterator);
+        }
+        return SortedIdIterators.intersection(iterators);
+    }
 
+    @Override
+    public CompressedBitmap combine(List<CompressedBitmap> operandIds) {
+        CompressedBitmap intersection = operandIds.get(0);
+        for (int i = 1; i < operandIds.size() && !intersection.isEmpty(); i++) {
+            intersection = intersection.and(operandIds.get(i));
+        }
+        return intersection;
+    }
+
+    @Override
+    public boolean isEmptyForEmptyFirstOperand() {
+        return true;
+    }
+
+    @Override
+    public CompressedBitmap getRecommendationIds(int unusedProductId, Graph graph, DependencyFootprint footprint) {
+        // An empty intersection stays empty until the dependencies of the strategies evaluated so far change
+        CompressedBitmap intersection = null;
+        for (StrategyWithId operand : operands) {
+            CompressedBitmap recommendations =
+                    operand.getStrategy().getRecommendationIds(operand.getProductId(), graph, footprint);
+            intersection = intersection == null ? recommendations : intersection.and(recommendations);
+            if (intersection.isEmpty()) {
+                break;
+            }
+        }
         return intersection;
     }
 }
\ No newline at end of file
@@ -0,0 +1,158 @@
+package strategy;
+
+import model.Graph;
+import util.CompressedBitmap;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.concurrent.locks.Lock;
+
+import static strategy.QueryPlannerConstants.DEFAULT_PARALLEL_THRESHOLD;
+
+/**
+ * Evaluates query plans on a fork/join pool by evaluating the operands of unions and
+ * intersections in parallel. Plan steps whose estimated cost is below a threshold are
+ * evaluated sequentially, since forking them would cost more than it saves.
+ * Operands after the first one of an intersection or difference are only forked if the first
+ * operand is not empty, and every shared step is evaluated by the first task that reaches it.
+ * The read lock of the graph is held for the whole evaluation, so all operands see the
+ * same state of the graph even if other threads try to change it.
+ * Every task records the dependencies of its step in its own footprint, which is merged
+ * into the footprint of the parent step after joining.
+ *
+ * @author uuifx
+ */
+public class ParallelEvaluator {
+    private final ForkJoinPool pool;
+    private final long threshold;
+
+    /**
+     * Creates a new evaluator on the common pool with the default threshold.
+     */
+    public ParallelEvaluator() {
+        this(ForkJoinPool.commonPool(), DEFAULT_PARALLEL_THRESHOLD);
+    }
+
+    /**
+     * Creates a new evaluator.
+     *
+     * @param pool The pool to evaluate on
+     * @param threshold The estimated cost below which a plan step is evaluated sequentially
+     */
+    public ParallelEvaluator(ForkJoinPool pool, long threshold) {
+        this.pool = pool;
+        this.threshold = threshold;
+    }
+
+    /**
+     * Evaluates a plan and records the parts of the graph the result depends on.
+     *
+     * @param plan The plan to evaluate
+     * @param graph The product graph
+     * @param footprint The footprint to add the dependencies to
+     * @return A bitmap of the IDs of the recommended products, which may be shared and must not be modified
+     */
+    public CompressedBitmap evaluate(QueryPlan plan, Graph graph, DependencyFootprint footprint) {
+        Lock readLock = graph.getReadLock();
+        readLock.lock();
+        try {
+            if (plan.getEstimatedCost() < threshold) {
+                return plan.getStrategy().getRecommendationIds(plan.getProductId(), graph, footprint);
+            }
+            EvaluationTask task = new EvaluationTask(plan, graph,
+                    new ConcurrentHashMap<SharedSubtermStrategy, EvaluationTask>());
+            CompressedBitmap result = pool.invoke(task);
+            footprint.addAll(task.footprint);
+            return result;
+        } finally {
+            readLock.unlock();
+        }
+    }
+
+    /**
+     * Task that evaluates one plan step, forking a task for each operand of an expensive composite step.
+     */
+    private final class EvaluationTask extends RecursiveTask<CompressedBitmap> {
+        private static final long serialVersionUID = 1L;
+
+        private final QueryPlan plan;
+        private final Graph graph;
+        private final Map<SharedSubtermStrategy, EvaluationTask> claims;
+        private final DependencyFootprint footprint = new DependencyFootprint();
+
+        /**
+         * Creates a new task.
+         *
+         * @param plan The plan step to evaluate
+         * @param graph The product graph
+         * @param claims The task evaluating each shared step of the plan, shared by all tasks of one evaluation
+         */
+        EvaluationTask(QueryPlan plan, Graph graph, Map<SharedSubtermStrategy, EvaluationTask> claims) {
+            this.plan = plan;
+            this.graph = graph;
+            this.claims = claims;
+        }
+
+        @Override
+        protected CompressedBitmap compute() {
+            RecommendationStrategy strategy = plan.getStrategy();
+            SharedSubtermStrategy shared = null;
+            if (strategy instanceof SharedSubtermStrategy) {
+                shared = (SharedSubtermStrategy) strategy;
+                CompressedBitmap remembered = shared.getRememberedResult(plan.getProductId(), graph, footprint);
+                if (remembered != null) {
+                    return remembered;
+                }
+                // Only the first task to reach a shared step evaluates it, the others wait for its result
+                EvaluationTask owner = claims.putIfAbsent(shared, this);
+                if (owner != null) {
+                    CompressedBitmap result = owner.join();
+                    footprint.addAll(owner.footprint);
+                    return result;
+                }
+                strategy = shared.getStrategy();
+            }
+
+            if (!(strategy instanceof CompositeStrategy) || plan.getChildren().isEmpty()
+                    || plan.getEstimatedCost() < threshold) {
+                return plan.getStrategy().getRecommendationIds(plan.getProductId(), graph, footprint);
+            }
+
+            CompositeStrategy composite = (CompositeStrategy) strategy;
+            List<QueryPlan> children = plan.getChildren();
+            List<CompressedBitmap> operandIds = new ArrayList<>(children.size());
+            CompressedBitmap result = null;
+            if (composite.isEmptyForEmptyFirstOperand()) {
+                // Evaluate the first and cheapest operand alone, the others are only needed if it is not empty
+                EvaluationTask first = new EvaluationTask(children.get(0), graph, claims);
+                operandIds.add(first.invoke());
+                footprint.addAll(first.footprint);
+                if (operandIds.get(0).isEmpty()) {
+                    result = operandIds.get(0);
+                }
+            }
+
+            if (result == null) {
+                List<EvaluationTask> tasks = new ArrayList<>(children.size());
+                for (int i = operandIds.size(); i < children.size(); i++) {
+                    tasks.add(new EvaluationTask(children.get(i), graph, claims));
+                }
+                invokeAll(tasks);
+                for (EvaluationTask task : tasks) {
+                    operandIds.add(task.join());
+                    footprint.addAll(task.footprint);
+                }
+                result = composite.combine(operandIds);
+            }
+
+            if (shared != null) {
+                shared.remember(plan.getProductId(), graph, result, footprint);
+            }
+            return result;
+        }
+    }
+}
\ No newline at end of file
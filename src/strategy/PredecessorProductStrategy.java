@@ -1,12 +1,6 @@
 package strategy;
 
-import model.Edge;
-import model.Graph;
-import model.Node;
-import model.Product;
 import model.RelationshipTypes;
-import java.util.HashSet;
-import java.util.Set;
 
 /**
  * Strategy for recommending predecessor products (S3).
@@ -14,63 +8,12 @@ import java.util.Set;
  *
  * @author uuifx
  */
-public class PredecessorProductStrategy implements RecommendationStrategy {
-
-    @Override
-    public Set<Product> getRecommendations(int referenceProductId, Graph graph) {
-        Set<Product> recommendations = new HashSet<>();
-
-        // Find the reference product
-        Product referenceProduct = findProductById(referenceProductId, graph);
-        if (referenceProduct == null) {
-            return recommendations;
-        }
-
-        // Find all predecessor products using depth-first search
-        Set<Node> visited = new HashSet<>();
-        findPredecessors(referenceProduct, graph, recommendations, visited);
-
-        return recommendations;
-    }
-
-    /**
-     * Recursively finds all predecessor products using depth-first search.
-     *
-     * @param current The current product
-     * @param graph The product graph
-     * @param recommendations The set of recommendations to fill
-     * @param visited The set of visited nodes
-     */
-    private void findPredecessors(Product current, Graph graph, Set<Product> recommendations, Set<Node> visited) {
-        visited.add(current);
-
-        // Get all outgoing successor-of edges (since we're looking for predecessors)
-        Set<Edge> successorOfEdges = graph.getOutgoingEdgesByRelationship(current, RelationshipTypes.SUCCESSOR_OF);
-
-        for (Edge edge : successorOfEdges) {
-            Node target = edge.getTarget();
-            if (target.isProduct() && !visited.contains(target)) {
-                Product predecessor = (Product) target;
-                recommendations.add(predecessor);
-                // Recursively find predecessors of this predecessor
-                findPredecessors(predecessor, graph, recommendations, visited);
-            }
-        }
-    }
+public class PredecessorProductStrategy extends ClosureProductStrategy {
 
     /**
-     * Finds a product by its ID.
-     *
-     * @param productId The product ID
-     * @param graph The product graph
-     * @return The product, or null if not found
+     * Creates a new predecessor strategy, which follows the outgoing successor-of edges (since we're looking for predecessors).
      */
-    private Product findProductById(int productId, Graph graph) {
-        for (Product product : graph.getProducts()) {
-            if (product.getId() == productId) {
-                return product;
-            }
-        }
-        return null;
+    public PredecessorProductStrategy() {
+        super(RelationshipTypes.SUCCESSOR_OF);
     }
 }
\ No newline at end of file
@@ -0,0 +1,69 @@
+package strategy;
+
+import model.Graph;
+import model.Product;
+import util.CompressedBitmap;
+
+import java.util.HashSet;
+import java.util.PrimitiveIterator;
+import java.util.Set;
+
+/**
+ * Conversions between sets of products and bitmaps of product IDs.
+ *
+ * @author uuifx
+ */
+final class ProductBitmaps {
+
+    /**
+     * Private constructor to prevent instantiation.
+     */
+    private ProductBitmaps() {
+    }
+
+    /**
+     * Collects the IDs of the given products.
+     *
+     * @param products The products
+     * @return A new bitmap of the product IDs
+     */
+    static CompressedBitmap toIds(Set<Product> products) {
+        CompressedBitmap ids = new CompressedBitmap();
+        for (Product product : products) {
+            ids.add(product.getId());
+        }
+        return ids;
+    }
+
+    /**
+     * Resolves product IDs to the handles of the products in a graph.
+     *
+     * @param ids The product IDs
+     * @param graph The product graph
+     * @return The handles of the products, -1 for IDs without a product
+     */
+    static int[] toHandles(int[] ids, Graph graph) {
+        int[] handles = new int[ids.length];
+        for (int i = 0; i < ids.length; i++) {
+            Product product = graph.getProductById(ids[i]);
+            handles[i] = product == null ? -1 : graph.getHandle(product);
+        }
+        return handles;
+    }
+
+    /**
+     * Resolves product IDs to the products of a graph.
+     *
+     * @param ids The product IDs
+     * @param graph The product graph
+     * @return A new set of the products with the given IDs
+     */
+    static Set<Product> toProducts(CompressedBitmap ids, Graph graph) {
+        Set<Product> products = new HashSet<>();
+        PrimitiveIterator.OfInt iterator = ids.iterator();
+        while (iterator.hasNext()) {
+            products.add(graph.getProductById(iterator.nextInt()));
+        }
+        return products;
+    }
+}
\ No newline at end of file
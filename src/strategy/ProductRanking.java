@@ -0,0 +1,115 @@
+package strategy;
+
+import model.Graph;
+import model.Product;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.PrimitiveIterator;
+import java.util.PriorityQueue;
+
+/**
+ * Selection of the best recommendations without sorting all of them.
+ *
+ * @author uuifx
+ */
+public final class ProductRanking {
+    private static final int INITIAL_CAPACITY = 16;
+
+    /**
+     * Orders products by their lowercase name, like the output of the recommend command.
+     */
+    static final Comparator<Product> BY_NAME = new Comparator<Product>() {
+        @Override
+        public int compare(Product first, Product second) {
+            return first.getLowerCaseName().compareTo(second.getLowerCaseName());
+        }
+    };
+
+    /**
+     * Private constructor to prevent instantiation of this utility class.
+     */
+    private ProductRanking() {
+        // Utility class should not be instantiated
+    }
+
+    /**
+     * Gets the best recommendations of a strategy for a reference product.
+     * Ranked strategies order them by distance and name, all others by name only.
+     *
+     * @param strategy The recommendation strategy
+     * @param referenceProductId The ID of the reference product
+     * @param graph The product graph
+     * @param limit The maximum number of recommendations, at least one
+     * @return A new list of at most limit recommended products, best first
+     */
+    public static List<Product> getTopRecommendations(RecommendationStrategy strategy, int referenceProductId,
+                                                      Graph graph, int limit) {
+        if (strategy instanceof RankedRecommendationStrategy) {
+            return ((RankedRecommendationStrategy) strategy).getTopRecommendations(referenceProductId, graph, limit);
+        }
+        return selectFirstByName(strategy.iterateRecommendationIds(referenceProductId, graph), graph, limit);
+    }
+
+    /**
+     * Selects the products that come first by name, keeping only the current candidates in a bounded heap.
+     *
+     * @param ids The IDs of the products to select from
+     * @param graph The product graph
+     * @param limit The maximum number of products to select
+     * @return A new list of at most limit products, sorted by name
+     */
+    public static List<Product> selectFirstByName(PrimitiveIterator.OfInt ids, Graph graph, int limit) {
+        PriorityQueue<Product> candidates = newCandidateHeap(limit);
+        if (limit <= 0) {
+            return drain(candidates);
+        }
+        while (ids.hasNext()) {
+            offer(candidates, graph.getProductById(ids.nextInt()), limit);
+        }
+        return drain(candidates);
+    }
+
+    /**
+     * Creates an empty bounded heap whose head is its worst candidate by name.
+     *
+     * @param limit The maximum number of candidates
+     * @return A new heap of candidates
+     */
+    static PriorityQueue<Product> newCandidateHeap(int limit) {
+        return new PriorityQueue<>(Math.max(1, Math.min(limit, INITIAL_CAPACITY)), Collections.reverseOrder(BY_NAME));
+    }
+
+    /**
+     * Offers a product to a bounded heap whose head is its worst candidate.
+     *
+     * @param candidates The heap of candidates, ordered worst first
+     * @param product The product to offer
+     * @param limit The maximum number of candidates
+     */
+    static void offer(PriorityQueue<Product> candidates, Product product, int limit) {
+        if (candidates.size() < limit) {
+            candidates.add(product);
+        } else if (BY_NAME.compare(product, candidates.peek()) < 0) {
+            candidates.poll();
+            candidates.add(product);
+        }
+    }
+
+    /**
+     * Removes all candidates from a bounded heap.
+     *
+     * @param candidates The heap of candidates, ordered worst first
+     * @return A new list of the candidates, best first
+     */
+    static List<Product> drain(PriorityQueue<Product> candidates) {
+        List<Product> products = new ArrayList<>(candidates.size());
+        while (!candidates.isEmpty()) {
+            products.add(candidates.poll());
+        }
+        Collections.reverse(products);
+        return products;
+    }
+}
\ No newline at end of file
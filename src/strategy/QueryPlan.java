@@ -0,0 +1,153 @@
+package strategy;
+
+import util.Constants.CLI;
+import util.Constants.Plan;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * A step in the evaluation plan of a recommend term, together with the strategy that executes it.
+ * The children of a composite step are ordered in the order they are evaluated.
+ *
+ * @author uuifx
+ */
+public class QueryPlan {
+    private final String operation;
+    private final RecommendationStrategy strategy;
+    private final int productId;
+    private final long estimatedCardinality;
+    private final long estimatedCost;
+    private final List<QueryPlan> children;
+
+    /**
+     * Creates a new plan step.
+     *
+     * @param operation The description of the step
+     * @param strategy The strategy that executes the step
+     * @param productId The product ID the strategy is applied with
+     * @param estimatedCardinality The estimated number of recommended products
+     * @param estimatedCost The estimated cost of the step including its children
+     * @param children The child steps in evaluation order
+     */
+    QueryPlan(String operation, RecommendationStrategy strategy, int productId,
+              long estimatedCardinality, long estimatedCost, QueryPlan... children) {
+        this.operation = operation;
+        this.strategy = strategy;
+        this.productId = productId;
+        this.estimatedCardinality = estimatedCardinality;
+        this.estimatedCost = estimatedCost;
+        this.children = Collections.unmodifiableList(new ArrayList<>(Arrays.asList(children)));
+    }
+
+    /**
+     * Gets the strategy that executes this step.
+     *
+     * @return The strategy
+     */
+    public RecommendationStrategy getStrategy() {
+        return strategy;
+    }
+
+    /**
+     * Gets the product ID the strategy is applied with.
+     *
+     * @return The product ID
+     */
+    public int getProductId() {
+        return productId;
+    }
+
+    /**
+     * Gets the estimated number of recommended products.
+     *
+     * @return The estimated cardinality
+     */
+    public long getEstimatedCardinality() {
+        return estimatedCardinality;
+    }
+
+    /**
+     * Gets the estimated cost of this step including its children.
+     *
+     * @return The estimated cost
+     */
+    public long getEstimatedCost() {
+        return estimatedCost;
+    }
+
+    /**
+     * Gets the child steps in evaluation order.
+     *
+     * @return An unmodifiable list of the child steps
+     */
+    public List<QueryPlan> getChildren() {
+        return children;
+    }
+
+    /**
+     * Creates a copy of this step whose strategy evaluates only once per state of the graph,
+     * for a subterm that occurs more than once in a term.
+     *
+     * @return The shared step
+     */
+    QueryPlan shared() {
+        return new QueryPlan(operation, new SharedSubtermStrategy(strategy), productId,
+                estimatedCardinality, estimatedCost, children.toArray(new QueryPlan[0]));
+    }
+
+    /**
+     * Creates a copy of this step with other child steps that execute the same strategies,
+     * such as steps reusing the results of the original ones.
+     *
+     * @param newChildren The child steps in evaluation order
+     * @param newCost The estimated cost of the step including the new children
+     * @return The copied step
+     */
+    QueryPlan withChildren(List<QueryPlan> newChildren, long newCost) {
+        return new QueryPlan(operation, strategy, productId, estimatedCardinality, newCost,
+                newChildren.toArray(new QueryPlan[0]));
+    }
+
+    /**
+     * Creates a step that reuses the result of this step. Its cost is already paid by this step.
+     *
+     * @return The reusing step
+     */
+    QueryPlan reference() {
+        return new QueryPlan(operation + Plan.REUSED, strategy, productId, estimatedCardinality, 0);
+    }
+
+    /**
+     * Renders the plan as an indented tree with one step per line.
+     *
+     * @return The rendered plan
+     */
+    public String explain() {
+        StringBuilder sb = new StringBuilder();
+        appendTo(sb, 0);
+        return sb.toString();
+    }
+
+    /**
+     * Appends this step and its children to the rendered plan.
+     *
+     * @param sb The builder of the rendered plan
+     * @param depth The depth of this step in the tree
+     */
+    private void appendTo(StringBuilder sb, int depth) {
+        if (sb.length() > 0) {
+            sb.append(CLI.NEW_LINE);
+        }
+        for (int i = 0; i < depth; i++) {
+            sb.append(Plan.INDENT);
+        }
+        sb.append(operation).append(Plan.ROWS_START).append(estimatedCardinality)
+                .append(Plan.COST_SEPARATOR).append(estimatedCost).append(Plan.ESTIMATES_END);
+        for (QueryPlan child : children) {
+            child.appendTo(sb, depth + 1);
+        }
+    }
+}
\ No newline at end of file
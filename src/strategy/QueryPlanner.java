@@ -0,0 +1,521 @@
+package strategy;
+
+import model.Edge;
+import model.Graph;
+import model.Product;
+import model.RelationshipTypes;
+import parser.RecommendCommandParser.ExceptTerm;
+import parser.RecommendCommandParser.FinalTerm;
+import parser.RecommendCommandParser.IntersectionTerm;
+import parser.RecommendCommandParser.RecommendTerm;
+import parser.RecommendCommandParser.UnionTerm;
+import util.CompressedBitmap;
+import util.Constants;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static parser.RecommendCommandParserConstants.CLOSE_PAREN;
+import static parser.RecommendCommandParserConstants.COMMA;
+import static parser.RecommendCommandParserConstants.DEFAULT_LEVELS;
+import static parser.RecommendCommandParserConstants.OPEN_PAREN;
+import static strategy.QueryPlannerConstants.LOOKUP_COST;
+import static strategy.QueryPlannerConstants.TRAVERSAL_COST_PER_PRODUCT;
+
+/**
+ * Cost-based planner that turns a recommend term into an evaluation plan.
+ * The cardinality of every final term is estimated from the graph: exactly for sibling products
+ * and indexed closures, and from the out-degree of the reference product and the average
+ * out-degree of all products for closures that still have to be traversed.
+ * Intersections evaluate their cheaper side first, so that an empty side skips the other one.
+ * Nested unions and intersections are flattened into steps with many operands.
+ * Identical subterms are merged, turning the term tree into a DAG in which every distinct
+ * subterm is planned and evaluated once. Only the first occurrence of a shared subterm in evaluation
+ * order pays its cost, the later ones are marked as reusing its result.
+ *
+ * @author uuifx
+ */
+public final class QueryPlanner {
+
+    /**
+     * Private constructor to prevent instantiation of this utility class.
+     */
+    private QueryPlanner() {
+        // Utility class should not be instantiated
+    }
+
+    /**
+     * Creates the evaluation plan of a recommend term for the current state of a graph.
+     *
+     * @param term The parsed recommendation term
+     * @param graph The product graph
+     * @return The evaluation plan
+     * @throws IllegalArgumentException If the term is invalid
+     */
+    public static QueryPlan plan(RecommendTerm term, Graph graph) {
+        if (term == null) {
+            throw new IllegalArgumentException(Constants.Error.TERM_MUST_NOT_BE_NULL);
+        }
+
+        SubtermTable subterms = new SubtermTable();
+        subterms.intern(term);
+        QueryPlan plan = plan(term, graph, subterms, new HashMap<Integer, QueryPlan>());
+        return markReused(plan, Collections.newSetFromMap(new IdentityHashMap<QueryPlan, Boolean>()));
+    }
+
+    /**
+     * Plans a subterm, returning the plan of an identical subterm that was planned before.
+     * The strategy of a subterm that occurs more than once remembers its result, so that
+     * every distinct subterm is evaluated only once per query.
+     *
+     * @param term The subterm
+     * @param graph The product graph
+     * @param subterms The distinct subterms of the whole term
+     * @param plans The plans of the distinct subterms planned so far, by subterm ID
+     * @return The plan step of the subterm
+     */
+    private static QueryPlan plan(RecommendTerm term, Graph graph, SubtermTable subterms, Map<Integer, QueryPlan> plans) {
+        int id = subterms.getId(term);
+        QueryPlan planned = plans.get(id);
+        if (planned != null) {
+            return planned;
+        }
+
+        QueryPlan plan;
+        if (term instanceof FinalTerm) {
+            plan = planFinal((FinalTerm) term, graph);
+        } else if (term instanceof ExceptTerm) {
+            // A difference is not associative, so its operands are planned as they are
+            ExceptTerm exceptTerm = (ExceptTerm) term;
+            plan = planExcept(plan(exceptTerm.getLeft(), graph, subterms, plans),
+                    plan(exceptTerm.getRight(), graph, subterms, plans));
+        } else {
+            // Flatten nested chains of the same operation into one step with many operands
+            boolean intersection = term instanceof IntersectionTerm;
+            List<RecommendTerm> operandTerms = new ArrayList<>();
+            collectOperands(term, intersection, subterms, operandTerms);
+            List<QueryPlan> operands = new ArrayList<>(operandTerms.size());
+            for (RecommendTerm operandTerm : operandTerms) {
+                operands.add(plan(operandTerm, graph, subterms, plans));
+            }
+            plan = intersection ? planIntersection(operands) : planUnion(operands, graph);
+        }
+
+        if (subterms.getOccurrences(id) > 1) {
+            plan = plan.shared();
+        }
+        plans.put(id, plan);
+        return plan;
+    }
+
+    /**
+     * Replaces every occurrence of a shared step after the first one in evaluation order by a step that
+     * reuses its result, and updates the costs of the steps containing such occurrences.
+     *
+     * @param plan The plan step
+     * @param evaluated The shared steps evaluated before this step
+     * @return The plan step with its later shared occurrences marked as reused
+     */
+    private static QueryPlan markReused(QueryPlan plan, Set<QueryPlan> evaluated) {
+        RecommendationStrategy strategy = plan.getStrategy();
+        if (strategy instanceof SharedSubtermStrategy) {
+            if (!evaluated.add(plan)) {
+                return plan.reference();
+            }
+            strategy = ((SharedSubtermStrategy) strategy).getStrategy();
+        }
+        if (plan.getChildren().isEmpty()) {
+            return plan;
+        }
+
+        List<QueryPlan> children = new ArrayList<>(plan.getChildren().size());
+        boolean changed = false;
+        for (QueryPlan child : plan.getChildren()) {
+            QueryPlan marked = markReused(child, evaluated);
+            children.add(marked);
+            changed |= marked != child;
+        }
+        if (!changed) {
+            return plan;
+        }
+
+        long cost;
+        if (strategy instanceof IntersectionStrategy) {
+            cost = intersectionCost(children);
+        } else if (strategy instanceof UnionStrategy) {
+            cost = unionCost(children);
+        } else {
+            cost = exceptCost(children.get(0), children.get(1));
+        }
+        return plan.withChildren(children, cost);
+    }
+
+    /**
+     * Plans a final term.
+     *
+     * @param term The final term
+     * @param graph The product graph
+     * @return The plan step of the term
+     */
+    private static QueryPlan planFinal(FinalTerm term, Graph graph) {
+        RecommendationStrategy strategy = RecommendationStrategyFactory.createStrategy(term);
+        Product referenceProduct = graph.getProductById(term.getProductId());
+        if (referenceProduct == null) {
+            return new QueryPlan(term.toString(), strategy, term.getProductId(), 0, LOOKUP_COST);
+        }
+
+        switch (term.getStrategy()) {
+            case Constants.Strategy.S1:
+                long siblings = estimateSiblings(referenceProduct, (SiblingProductStrategy) strategy, graph);
+                return new QueryPlan(term.toString(), strategy, term.getProductId(), siblings, LOOKUP_COST + siblings);
+            case Constants.Strategy.S2:
+            case Constants.Strategy.S3:
+            case Constants.Strategy.S4:
+            case Constants.Strategy.S5:
+                return planClosure(term, strategy, referenceProduct,
+                        ((ClosureProductStrategy) strategy).getRelationship(), graph);
+            default:
+                throw new IllegalArgumentException(Constants.Error.UNKNOWN_STRATEGY_TYPE + term.getStrategy());
+        }
+    }
+
+    /**
+     * Counts the sibling products of a product, which the category bitmaps give exactly.
+     * Over several levels, the sizes of the ancestors' subtrees are added up, so products below
+     * more than one ancestor are counted more than once.
+     *
+     * @param referenceProduct The reference product
+     * @param strategy The sibling strategy
+     * @param graph The product graph
+     * @return The number of member products of all parent categories, not counting the reference product
+     */
+    private static long estimateSiblings(Product referenceProduct, SiblingProductStrategy strategy, Graph graph) {
+        if (strategy.getLevels() > DEFAULT_LEVELS) {
+            long products = 0;
+            for (int ancestor : strategy.getAncestorCategories(referenceProduct, graph)) {
+                products += graph.getSubtreeProductIds(ancestor).cardinality();
+            }
+            return Math.min(products, graph.getProductCount() - 1);
+        }
+
+        long siblings = 0;
+        for (Edge edge : graph.getOutgoingEdgesByRelationship(referenceProduct, RelationshipTypes.CONTAINED_IN)) {
+            CompressedBitmap memberIds = graph.getMemberProductIds(graph.getHandle(edge.getTarget()));
+            if (memberIds != null) {
+                siblings += memberIds.cardinality() - 1;
+            }
+        }
+        return siblings;
+    }
+
+    /**
+     * Plans a final term whose products are the transitive closure of the reference product.
+     * Without an indexed closure, the reachable products are estimated as a branching process:
+     * every reached product has the average out-degree of all products, so a reference product with
+     * out-degree d reaches about d / (1 - b) products for an average out-degree b below one.
+     *
+     * @param term The final term
+     * @param strategy The strategy of the term
+     * @param referenceProduct The reference product
+     * @param relationship The relationship type the closure follows
+     * @param graph The product graph
+     * @return The plan step of the term
+     */
+    private static QueryPlan planClosure(FinalTerm term, RecommendationStrategy strategy, Product referenceProduct,
+                                         RelationshipTypes relationship, Graph graph) {
+        int referenceHandle = graph.getHandle(referenceProduct);
+        CompressedBitmap indexed = graph.getIndexedClosure(referenceHandle, relationship);
+        if (indexed != null) {
+            return new QueryPlan(term.toString(), strategy, term.getProductId(), indexed.cardinality(),
+                    LOOKUP_COST + indexed.cardinality());
+        }
+
+        long others = graph.getProductCount() - 1;
+        int degree = graph.getOutgoingEdgesByRelationship(referenceHandle, relationship).size();
+        double branching = (double) graph.getEdgeCount(relationship) / Math.max(1, graph.getProductCount());
+        long estimate;
+        if (degree == 0) {
+            estimate = 0;
+        } else if (branching >= 1) {
+            estimate = others;
+        } else {
+            estimate = Math.min(others, Math.round(degree / (1 - branching)));
+        }
+        return new QueryPlan(term.toString(), strategy, term.getProductId(), estimate,
+                LOOKUP_COST + TRAVERSAL_COST_PER_PRODUCT * estimate);
+    }
+
+    /**
+     * Collects the operands of a union or intersection. Since both operations are associative,
+     * an operand of the same operation contributes its own operands instead, unless it occurs
+     * more than once and is therefore kept as a shared step.
+     *
+     * @param term The union or intersection term
+     * @param intersection true if the term is an intersection, false if it is a union
+     * @param subterms The distinct subterms of the whole term
+     * @param operands The list to add the operands to, in the order they appear in the term
+     */
+    private static void collectOperands(RecommendTerm term, boolean intersection, SubtermTable subterms,
+                                        List<RecommendTerm> operands) {
+        RecommendTerm left;
+        RecommendTerm right;
+        if (intersection) {
+            left = ((IntersectionTerm) term).getLeft();
+            right = ((IntersectionTerm) term).getRight();
+        } else {
+            left = ((UnionTerm) term).getLeft();
+            right = ((UnionTerm) term).getRight();
+        }
+
+        for (RecommendTerm operand : new RecommendTerm[] {left, right}) {
+            boolean sameOperation = intersection ? operand instanceof IntersectionTerm : operand instanceof UnionTerm;
+            if (sameOperation && subterms.getOccurrences(subterms.getId(operand)) == 1) {
+                collectOperands(operand, intersection, subterms, operands);
+            } else {
+                operands.add(operand);
+            }
+        }
+    }
+
+    /**
+     * Plans an intersection of any number of operands. Operands known to be empty come first, followed
+     * by the others from the cheapest to the most expensive; ties put the smaller result first.
+     * Each operand is only evaluated if the intersection of the operands before it is not empty.
+     *
+     * @param operands The plans of the operands
+     * @return The plan step of the intersection
+     */
+    private static QueryPlan planIntersection(List<QueryPlan> operands) {
+        List<QueryPlan> ordered = new ArrayList<>(operands);
+        Collections.sort(ordered, new Comparator<QueryPlan>() {
+            @Override
+            public int compare(QueryPlan first, QueryPlan second) {
+                int byCost = Long.compare(firstCost(first), firstCost(second));
+                if (byCost != 0) {
+                    return byCost;
+                }
+                return Long.compare(first.getEstimatedCardinality(), second.getEstimatedCardinality());
+            }
+        });
+
+        long estimate = Long.MAX_VALUE;
+        List<StrategyWithId> strategies = new ArrayList<>(ordered.size());
+        for (QueryPlan operand : ordered) {
+            strategies.add(new StrategyWithId(operand.getStrategy(), operand.getProductId()));
+            estimate = Math.min(estimate, operand.getEstimatedCardinality());
+        }
+        QueryPlan first = ordered.get(0);
+        return new QueryPlan(Constants.Strategy.INTERSECTION, new IntersectionStrategy(strategies), first.getProductId(),
+                estimate, intersectionCost(ordered), ordered.toArray(new QueryPlan[0]));
+    }
+
+    /**
+     * Estimates the cost of an intersection. Operands after the first one estimated to make
+     * the intersection empty are not evaluated.
+     *
+     * @param ordered The plans of the operands in evaluation order
+     * @return The estimated cost of the intersection including its operands
+     */
+    private static long intersectionCost(List<QueryPlan> ordered) {
+        long cost = 0;
+        long estimate = -1;
+        for (QueryPlan operand : ordered) {
+            if (estimate == 0) {
+                break;
+            }
+            cost += operand.getEstimatedCost();
+            if (estimate < 0) {
+                estimate = operand.getEstimatedCardinality();
+            } else {
+                // Intersecting the running result costs about the size of the smaller side
+                estimate = Math.min(estimate, operand.getEstimatedCardinality());
+                cost += estimate;
+            }
+        }
+        return cost;
+    }
+
+    /**
+     * Gets the cost of evaluating a plan as the first operand of an intersection.
+     * A plan estimated to be empty costs nothing beyond itself, since it makes the other operands unnecessary.
+     *
+     * @param plan The plan
+     * @return The cost to compare
+     */
+    private static long firstCost(QueryPlan plan) {
+        return plan.getEstimatedCardinality() == 0 ? 0 : plan.getEstimatedCost();
+    }
+
+    /**
+     * Plans a union of any number of operands, which always evaluates all of them and merges them in one pass.
+     *
+     * @param operands The plans of the operands
+     * @param graph The product graph
+     * @return The plan step of the union
+     */
+    private static QueryPlan planUnion(List<QueryPlan> operands, Graph graph) {
+        long total = 0;
+        List<StrategyWithId> strategies = new ArrayList<>(operands.size());
+        for (QueryPlan operand : operands) {
+            strategies.add(new StrategyWithId(operand.getStrategy(), operand.getProductId()));
+            total += operand.getEstimatedCardinality();
+        }
+        QueryPlan first = operands.get(0);
+        return new QueryPlan(Constants.Strategy.UNION, new UnionStrategy(strategies), first.getProductId(),
+                Math.min(total, graph.getProductCount()), unionCost(operands), operands.toArray(new QueryPlan[0]));
+    }
+
+    /**
+     * Estimates the cost of a union, which evaluates all operands and merges all their products.
+     *
+     * @param operands The plans of the operands
+     * @return The estimated cost of the union including its operands
+     */
+    private static long unionCost(List<QueryPlan> operands) {
+        long cost = 0;
+        for (QueryPlan operand : operands) {
+            cost += operand.getEstimatedCost() + operand.getEstimatedCardinality();
+        }
+        return cost;
+    }
+
+    /**
+     * Plans a difference. The removed operand is only evaluated if the kept one is not empty,
+     * and the difference probes the kept products against the removed ones.
+     *
+     * @param kept The plan of the operand whose products are kept
+     * @param removed The plan of the operand whose products are removed
+     * @return The plan step of the difference
+     */
+    private static QueryPlan planExcept(QueryPlan kept, QueryPlan removed) {
+        ExceptStrategy strategy = new ExceptStrategy(kept.getStrategy(), kept.getProductId(),
+                removed.getStrategy(), removed.getProductId());
+        return new QueryPlan(Constants.Strategy.EXCEPT, strategy, kept.getProductId(),
+                kept.getEstimatedCardinality(), exceptCost(kept, removed), kept, removed);
+    }
+
+    /**
+     * Estimates the cost of a difference.
+     *
+     * @param kept The plan of the operand whose products are kept
+     * @param removed The plan of the operand whose products are removed
+     * @return The estimated cost of the difference including its operands
+     */
+    private static long exceptCost(QueryPlan kept, QueryPlan removed) {
+        long cost = kept.getEstimatedCost();
+        if (kept.getEstimatedCardinality() > 0) {
+            cost += removed.getEstimatedCost() + kept.getEstimatedCardinality();
+        }
+        return cost;
+    }
+
+    /**
+     * Table of the distinct subterms of a term. Subterms are hash-consed bottom-up: a composite
+     * subterm is identified by its operation and the IDs of its operands, so identical subtrees
+     * get the same ID without comparing them node by node.
+     * Only maximal repeated subtrees count as repeated: the subterms of a repeated subterm are
+     * counted for its first occurrence only, since sharing the subterm already evaluates them once.
+     */
+    private static final class SubtermTable {
+        private final Map<String, Integer> idsByKey = new HashMap<>();
+        private final Map<RecommendTerm, Integer> idsByTerm = new IdentityHashMap<>();
+        private final List<Integer> occurrences = new ArrayList<>();
+
+        /**
+         * Assigns IDs to a term and all its subterms and counts their occurrences.
+         *
+         * @param term The term
+         * @throws IllegalArgumentException If the term contains an unknown term type
+         */
+        void intern(RecommendTerm term) {
+            assignIds(term);
+            countOccurrences(term);
+        }
+
+        /**
+         * Assigns IDs to a term and all its subterms.
+         *
+         * @param term The term
+         * @return The ID of the term
+         * @throws IllegalArgumentException If the term contains an unknown term type
+         */
+        private int assignIds(RecommendTerm term) {
+            String key;
+            if (term instanceof FinalTerm) {
+                key = term.toString();
+            } else if (term instanceof IntersectionTerm) {
+                IntersectionTerm intersectionTerm = (IntersectionTerm) term;
+                key = Constants.Strategy.INTERSECTION + OPEN_PAREN + assignIds(intersectionTerm.getLeft())
+                        + COMMA + assignIds(intersectionTerm.getRight()) + CLOSE_PAREN;
+            } else if (term instanceof UnionTerm) {
+                UnionTerm unionTerm = (UnionTerm) term;
+                key = Constants.Strategy.UNION + OPEN_PAREN + assignIds(unionTerm.getLeft())
+                        + COMMA + assignIds(unionTerm.getRight()) + CLOSE_PAREN;
+            } else if (term instanceof ExceptTerm) {
+                ExceptTerm exceptTerm = (ExceptTerm) term;
+                key = Constants.Strategy.EXCEPT + OPEN_PAREN + assignIds(exceptTerm.getLeft())
+                        + COMMA + assignIds(exceptTerm.getRight()) + CLOSE_PAREN;
+            } else {
+                throw new IllegalArgumentException(Constants.Error.UNKNOWN_TERM_TYPE + term.getClass().getName());
+            }
+
+            Integer id = idsByKey.get(key);
+            if (id == null) {
+                id = occurrences.size();
+                idsByKey.put(key, id);
+                occurrences.add(0);
+            }
+            idsByTerm.put(term, id);
+            return id;
+        }
+
+        /**
+         * Counts the occurrences of a term and, on its first occurrence, of its subterms.
+         *
+         * @param term The term
+         */
+        private void countOccurrences(RecommendTerm term) {
+            int id = getId(term);
+            occurrences.set(id, occurrences.get(id) + 1);
+            if (occurrences.get(id) > 1) {
+                return;
+            }
+            if (term instanceof IntersectionTerm) {
+                countOccurrences(((IntersectionTerm) term).getLeft());
+                countOccurrences(((IntersectionTerm) term).getRight());
+            } else if (term instanceof UnionTerm) {
+                countOccurrences(((UnionTerm) term).getLeft());
+                countOccurrences(((UnionTerm) term).getRight());
+            } else if (term instanceof ExceptTerm) {
+                countOccurrences(((ExceptTerm) term).getLeft());
+                countOccurrences(((ExceptTerm) term).getRight());
+            }
+        }
+
+        /**
+         * Gets the ID of an interned term.
+         *
+         * @param term The term
+         * @return The ID of the term
+         */
+        int getId(RecommendTerm term) {
+            return idsByTerm.get(term);
+        }
+
+        /**
+         * Gets how often the subterm with the given ID occurs in the whole term.
+         *
+         * @param id The ID of the subterm
+         * @return The number of occurrences
+         */
+        int getOccurrences(int id) {
+            return occurrences.get(id);
+        }
+    }
+}
\ No newline at end of file
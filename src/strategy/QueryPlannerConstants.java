@@ -0,0 +1,29 @@
+package strategy;
+
+/**
+ * Constants used in the QueryPlanner class.
+ * @author uuifx
+ */
+public final class QueryPlannerConstants {
+    /**
+     * Estimated cost of looking up the reference product of a final term.
+     */
+    public static final long LOOKUP_COST = 1;
+
+    /**
+     * Estimated cost of reaching one product in a closure traversal, relative to copying one product ID.
+     */
+    public static final long TRAVERSAL_COST_PER_PRODUCT = 4;
+
+    /**
+     * Default estimated cost below which a plan is evaluated sequentially even in parallel mode.
+     */
+    public static final long DEFAULT_PARALLEL_THRESHOLD = 10000;
+
+    /**
+     * Private constructor to prevent instantiation.
+     */
+    private QueryPlannerConstants() {
+        // Utility class should not be instantiated
+    }
+}
\ No newline at end of file
@@ -0,0 +1,26 @@
+package strategy;
+
+import model.Graph;
+import model.Product;
+
+import java.util.List;
+
+/**
+ * Recommendation strategy that can rank its recommendations by their distance from the reference product,
+ * so that the best recommendations are found without computing all of them.
+ *
+ * @author uuifx
+ */
+public interface RankedRecommendationStrategy extends RecommendationStrategy {
+
+    /**
+     * Gets the best recommendations for a reference product. Products closer to the reference product
+     * come first, products at the same distance are ordered by name.
+     *
+     * @param referenceProductId The ID of the reference product
+     * @param graph The product graph
+     * @param limit The maximum number of recommendations, at least one
+     * @return A new list of at most limit recommended products, best first
+     */
+    List<Product> getTopRecommendations(int referenceProductId, Graph graph, int limit);
+}
\ No newline at end of file
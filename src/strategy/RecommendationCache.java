@@ -0,0 +1,298 @@
+package strategy;
+
+import model.Edge;
+import model.Graph;
+import model.GraphListener;
+import model.Node;
+import model.Product;
+import model.RelationshipTypes;
+import parser.RecommendCommandParser.RecommendTerm;
+import util.CompressedBitmap;
+
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static strategy.RecommendationCacheConstants.BYTES_PER_DEPENDENCY;
+import static strategy.RecommendationCacheConstants.BYTES_PER_KEY_CHAR;
+import static strategy.RecommendationCacheConstants.DEFAULT_MAX_BYTES;
+import static strategy.RecommendationCacheConstants.DEFAULT_MAX_ENTRIES;
+import static strategy.RecommendationCacheConstants.ENTRY_OVERHEAD_BYTES;
+
+/**
+ * Bounded cache of recommendation results of one graph, keyed by the normalized recommend term.
+ * Every result is stored with the dependency footprint it was computed from. The cache listens
+ * to the changes of the graph and drops exactly the results whose footprint a change touches,
+ * so results survive changes to unrelated parts of the graph. When the number of entries or their
+ * estimated size exceeds the limits, the least recently used entries are evicted.
+ *
+ * @author uuifx
+ */
+public class RecommendationCache implements GraphListener {
+    private final int maxEntries;
+    private final long maxBytes;
+    // Iterates from the least to the most recently used entry
+    private final Map<String, Entry> entries = new LinkedHashMap<>(16, 0.75f, true);
+    // Keys of the entries that depend on the outgoing edges of a node, per relationship type
+    private final Map<RelationshipTypes, Map<Node, Set<String>>> dependentsByRead = new EnumMap<>(RelationshipTypes.class);
+    // Keys of the entries that depend on the lookup of a product ID
+    private final Map<Integer, Set<String>> dependentsByProductId = new HashMap<>();
+    private long totalBytes;
+    private long hitCount;
+    private long missCount;
+
+    /**
+     * Creates a new cache for the given graph with the default limits.
+     *
+     * @param graph The graph whose results are cached
+     */
+    public RecommendationCache(Graph graph) {
+        this(graph, DEFAULT_MAX_ENTRIES, DEFAULT_MAX_BYTES);
+    }
+
+    /**
+     * Creates a new cache for the given graph with the given limits.
+     *
+     * @param graph The graph whose results are cached
+     * @param maxEntries The maximum number of cached results
+     * @param maxBytes The maximum estimated size of all cached results in bytes
+     */
+    public RecommendationCache(Graph graph, int maxEntries, long maxBytes) {
+        this.maxEntries = maxEntries;
+        this.maxBytes = maxBytes;
+        for (RelationshipTypes relationship : RelationshipTypes.values()) {
+            dependentsByRead.put(relationship, new HashMap<Node, Set<String>>());
+        }
+        graph.addListener(this);
+    }
+
+    /**
+     * Gets the cached result of a term.
+     *
+     * @param term The recommend term
+     * @return The cached product IDs, which must not be modified, or null if there is no valid result
+     */
+    public CompressedBitmap get(RecommendTerm term) {
+        Entry entry = entries.get(term.toString());
+        if (entry == null) {
+            missCount++;
+            return null;
+        }
+        hitCount++;
+        return entry.productIds;
+    }
+
+    /**
+     * Caches the result of a term computed from the current state of the graph.
+     * Results larger than the byte limit are not cached.
+     *
+     * @param term The recommend term
+     * @param productIds The recommended product IDs, which must not be modified afterwards
+     * @param footprint The dependencies of the result
+     */
+    public void put(RecommendTerm term, CompressedBitmap productIds, DependencyFootprint footprint) {
+        String key = term.toString();
+        remove(key);
+        Entry entry = new Entry(productIds, footprint, ENTRY_OVERHEAD_BYTES + BYTES_PER_KEY_CHAR * key.length()
+                + BYTES_PER_DEPENDENCY * footprint.size() + productIds.getSizeInBytes());
+        if (entry.bytes > maxBytes) {
+            return;
+        }
+        entries.put(key, entry);
+        totalBytes += entry.bytes;
+        for (RelationshipTypes relationship : RelationshipTypes.values()) {
+            for (Node node : footprint.getReadNodes(relationship)) {
+                register(dependentsByRead.get(relationship), node, key);
+            }
+        }
+        for (int productId : footprint.getProductIds()) {
+            register(dependentsByProductId, productId, key);
+        }
+
+        while (entries.size() > maxEntries || totalBytes > maxBytes) {
+            remove(entries.keySet().iterator().next());
+        }
+    }
+
+    /**
+     * Removes all cached results. The hit and miss counters are kept.
+     */
+    public void clear() {
+        entries.clear();
+        for (Map<Node, Set<String>> dependents : dependentsByRead.values()) {
+            dependents.clear();
+        }
+        dependentsByProductId.clear();
+        totalBytes = 0;
+    }
+
+    /**
+     * Gets the number of lookups that returned a cached result.
+     *
+     * @return The hit count
+     */
+    public long getHitCount() {
+        return hitCount;
+    }
+
+    /**
+     * Gets the number of lookups that found no valid cached result.
+     *
+     * @return The miss count
+     */
+    public long getMissCount() {
+        return missCount;
+    }
+
+    /**
+     * Gets the number of cached results.
+     *
+     * @return The number of entries
+     */
+    public int size() {
+        return entries.size();
+    }
+
+    /**
+     * Gets the estimated size of all cached results.
+     *
+     * @return The estimated size in bytes
+     */
+    public long getSizeInBytes() {
+        return totalBytes;
+    }
+
+    @Override
+    public void nodeAdded(Node node) {
+        if (node.isProduct()) {
+            invalidate(dependentsByProductId.get(((Product) node).getId()));
+        }
+    }
+
+    @Override
+    public void nodeRemoved(Node node) {
+        if (node.isProduct()) {
+            invalidate(dependentsByProductId.get(((Product) node).getId()));
+        }
+    }
+
+    @Override
+    public void edgeAdded(Edge edge) {
+        edgeChanged(edge);
+    }
+
+    @Override
+    public void edgeRemoved(Edge edge) {
+        edgeChanged(edge);
+    }
+
+    @Override
+    public void graphCleared() {
+        clear();
+    }
+
+    /**
+     * Drops the results that read the outgoing edges of either end of a changed canonical edge.
+     *
+     * @param edge The added or removed canonical edge
+     */
+    private void edgeChanged(Edge edge) {
+        invalidate(dependentsByRead.get(edge.getRelationship()).get(edge.getSource()));
+        invalidate(dependentsByRead.get(edge.getRelationship().getInverse()).get(edge.getTarget()));
+    }
+
+    /**
+     * Removes the entries with the given keys.
+     *
+     * @param keys The keys of the entries, or null if there are none
+     */
+    private void invalidate(Set<String> keys) {
+        if (keys == null) {
+            return;
+        }
+        // Removing an entry modifies the given set
+        for (String key : new ArrayList<>(keys)) {
+            remove(key);
+        }
+    }
+
+    /**
+     * Registers an entry as dependent on a node read or product ID.
+     *
+     * @param dependents The dependents of all node reads or product IDs
+     * @param dependency The node read or product ID
+     * @param key The key of the entry
+     * @param <T> The type of the dependency
+     */
+    private static <T> void register(Map<T, Set<String>> dependents, T dependency, String key) {
+        Set<String> keys = dependents.get(dependency);
+        if (keys == null) {
+            keys = new HashSet<>();
+            dependents.put(dependency, keys);
+        }
+        keys.add(key);
+    }
+
+    /**
+     * Unregisters an entry as dependent on a node read or product ID.
+     *
+     * @param dependents The dependents of all node reads or product IDs
+     * @param dependency The node read or product ID
+     * @param key The key of the entry
+     * @param <T> The type of the dependency
+     */
+    private static <T> void unregister(Map<T, Set<String>> dependents, T dependency, String key) {
+        Set<String> keys = dependents.get(dependency);
+        if (keys != null && keys.remove(key) && keys.isEmpty()) {
+            dependents.remove(dependency);
+        }
+    }
+
+    /**
+     * Removes the entry with the given key and its dependencies, if present.
+     *
+     * @param key The key of the entry
+     */
+    private void remove(String key) {
+        Entry entry = entries.remove(key);
+        if (entry == null) {
+            return;
+        }
+        totalBytes -= entry.bytes;
+        for (RelationshipTypes relationship : RelationshipTypes.values()) {
+            for (Node node : entry.footprint.getReadNodes(relationship)) {
+                unregister(dependentsByRead.get(relationship), node, key);
+            }
+        }
+        for (int productId : entry.footprint.getProductIds()) {
+            unregister(dependentsByProductId, productId, key);
+        }
+    }
+
+    /**
+     * A cached result together with the dependencies it was computed from.
+     */
+    private static final class Entry {
+        private final CompressedBitmap productIds;
+        private final DependencyFootprint footprint;
+        private final long bytes;
+
+        /**
+         * Creates a new entry.
+         *
+         * @param productIds The recommended product IDs
+         * @param footprint The dependencies of the result
+         * @param bytes The estimated size of the entry in bytes
+         */
+        Entry(CompressedBitmap productIds, DependencyFootprint footprint, long bytes) {
+            this.productIds = productIds;
+            this.footprint = footprint;
+            this.bytes = bytes;
+        }
+    }
+}
\ No newline at end of file
@@ -0,0 +1,39 @@
+package strategy;
+
+/**
+ * Constants used in the RecommendationCache class.
+ * @author uuifx
+ */
+public final class RecommendationCacheConstants {
+    /**
+     * Default maximum number of cached results.
+     */
+    public static final int DEFAULT_MAX_ENTRIES = 4096;
+
+    /**
+     * Default maximum estimated size of all cached results in bytes.
+     */
+    public static final long DEFAULT_MAX_BYTES = 64L * 1024 * 1024;
+
+    /**
+     * Estimated size of the bookkeeping of one cache entry in bytes.
+     */
+    public static final long ENTRY_OVERHEAD_BYTES = 64;
+
+    /**
+     * Estimated size of one character of a cache key in bytes.
+     */
+    public static final long BYTES_PER_KEY_CHAR = 2;
+
+    /**
+     * Estimated size of one recorded dependency of a cache entry in bytes.
+     */
+    public static final long BYTES_PER_DEPENDENCY = 48;
+
+    /**
+     * Private constructor to prevent instantiation.
+     */
+    private RecommendationCacheConstants() {
+        // Utility class should not be instantiated
+    }
+}
\ No newline at end of file
@@ -2,6 +2,9 @@ package strategy;
 
 import model.Graph;
 import model.Product;
+import util.CompressedBitmap;
+
+import java.util.PrimitiveIterator;
 import java.util.Set;
 
 /**
@@ -19,4 +22,57 @@ public interface RecommendationStrategy {
      * @return A set of recommended products
      */
     Set<Product> getRecommendations(int referenceProductId, Graph graph);
+
+    /**
+     * Gets the IDs of the recommended products for a reference product.
+     * Composite strategies combine the bitmaps of their parts without materializing products.
+     *
+     * @param referenceProductId The ID of the reference product
+     * @param graph The product graph
+     * @return A bitmap of the IDs of the recommended products, which may be shared and must not be modified
+     */
+    CompressedBitmap getRecommendationIds(int referenceProductId, Graph graph);
+
+    /**
+     * Gets a lazy iterator over the IDs of the recommended products for a reference product in ascending order.
+     * Composite strategies merge the iterators of their parts, so each ID is only combined when it is requested.
+     *
+     * @param referenceProductId The ID of the reference product
+     * @param graph The product graph, which must not change while the iterator is in use
+     * @return An iterator over the ascending IDs of the recommended products
+     */
+    default PrimitiveIterator.OfInt iterateRecommendationIds(int referenceProductId, Graph graph) {
+        return getRecommendationIds(referenceProductId, graph).iterator();
+    }
+
+    /**
+     * Gets the IDs of the recommended products for many reference products at once.
+     * Strategies that traverse the graph share the work for overlapping parts of it,
+     * the others compute the recommendations for each reference product separately.
+     *
+     * @param referenceProductIds The IDs of the reference products
+     * @param graph The product graph
+     * @return The bitmaps of the IDs of the recommended products, in the order of the reference products,
+     *         which may be shared and must not be modified
+     */
+    default CompressedBitmap[] getRecommendationIds(int[] referenceProductIds, Graph graph) {
+        CompressedBitmap[] recommendationIds = new CompressedBitmap[referenceProductIds.length];
+        for (int i = 0; i < referenceProductIds.length; i++) {
+            recommendationIds[i] = getRecommendationIds(referenceProductIds[i], graph);
+        }
+        return recommendationIds;
+    }
+
+    /**
+     * Gets the IDs of the recommended products for a reference product and records the parts of the graph
+     * they depend on while computing them. Composite strategies only record the dependencies of the
+     * operands they actually evaluate.
+     *
+     * @param referenceProductId The ID of the reference product
+     * @param graph The product graph
+     * @param footprint The footprint to add the dependencies to
+     * @return A bitmap of the IDs of the recommended products, which may be shared and must not be modified
+     */
+    CompressedBitmap getRecommendationIds(int referenceProductId, Graph graph, DependencyFootprint footprint);
+
 }
\ No newline at end of file
@@ -1,6 +1,7 @@
 package strategy;
 
 import parser.RecommendCommandParser.RecommendTerm;
+import parser.RecommendCommandParser.ExceptTerm;
 import parser.RecommendCommandParser.FinalTerm;
 import parser.RecommendCommandParser.IntersectionTerm;
 import parser.RecommendCommandParser.UnionTerm;
@@ -47,12 +48,14 @@ public final class RecommendationStrategyFactory {
     private static StrategyWithId createStrategyWithId(RecommendTerm term) {
         if (term instanceof FinalTerm) {
             FinalTerm finalTerm = (FinalTerm) term;
-            RecommendationStrategy strategy = createFinalStrategy(finalTerm.getStrategy());
+            RecommendationStrategy strategy = createFinalStrategy(finalTerm.getStrategy(), finalTerm.getLevels());
             return new StrategyWithId(strategy, finalTerm.getProductId());
         } else if (term instanceof IntersectionTerm) {
             return createIntersectionStrategy((IntersectionTerm) term);
         } else if (term instanceof UnionTerm) {
             return createUnionStrategy((UnionTerm) term);
+        } else if (term instanceof ExceptTerm) {
+            return createExceptStrategy((ExceptTerm) term);
         } else {
             throw new IllegalArgumentException(Constants.Error.UNKNOWN_TERM_TYPE + term.getClass().getName());
         }
@@ -61,18 +64,23 @@ public final class RecommendationStrategyFactory {
     /**
      * Creates a basic recommendation strategy from a strategy type.
      *
-     * @param strategyType The strategy type (S1, S2, S3)
+     * @param strategyType The strategy type (S1 to S5)
+     * @param levels The number of category levels for siblings
      * @return The recommendation strategy
      * @throws IllegalArgumentException If the strategy type is invalid
      */
-    private static RecommendationStrategy createFinalStrategy(String strategyType) {
+    private static RecommendationStrategy createFinalStrategy(String strategyType, int levels) {
         switch (strategyType) {
             case Constants.Strategy.S1:
-                return new SiblingProductStrategy();
+                return new SiblingProductStrategy(levels);
             case Constants.Strategy.S2:
                 return new SuccessorProductStrategy();
             case Constants.Strategy.S3:
                 return new PredecessorProductStrategy();
+            case Constants.Strategy.S4:
+                return new ComponentProductStrategy();
+            case Constants.Strategy.S5:
+                return new SuiteProductStrategy();
             default:
                 throw new IllegalArgumentException(Constants.Error.UNKNOWN_STRATEGY_TYPE + strategyType);
         }
@@ -113,4 +121,22 @@ public final class RecommendationStrategyFactory {
         // Use the first strategy's product ID as the reference ID for the composite strategy
         return new StrategyWithId(strategy, leftStrategyWithId.getProductId());
     }
+
+    /**
+     * Creates a StrategyWithId for a difference strategy.
+     *
+     * @param term The except term
+     * @return A StrategyWithId containing the difference strategy and a product ID
+     */
+    private static StrategyWithId createExceptStrategy(ExceptTerm term) {
+        StrategyWithId leftStrategyWithId = createStrategyWithId(term.getLeft());
+        StrategyWithId rightStrategyWithId = createStrategyWithId(term.getRight());
+
+        ExceptStrategy strategy = new ExceptStrategy(
+                leftStrategyWithId.getStrategy(), leftStrategyWithId.getProductId(),
+                rightStrategyWithId.getStrategy(), rightStrategyWithId.getProductId());
+
+        // Use the first strategy's product ID as the reference ID for the composite strategy
+        return new StrategyWithId(strategy, leftStrategyWithId.getProductId());
+    }
 }
\ No newline at end of file
@@ -0,0 +1,129 @@
+package strategy;
+
+import model.Graph;
+import model.Product;
+import util.CompressedBitmap;
+
+import java.util.Set;
+
+/**
+ * Strategy for a subterm that occurs several times in a recommend term.
+ * It evaluates the wrapped strategy once and returns the same result until the graph changes.
+ * The dependencies recorded while evaluating it are remembered with the result and added to the
+ * footprint of every occurrence.
+ * The remembered result is guarded by the strategy itself, since parallel evaluation may
+ * reach several occurrences of the subterm at the same time.
+ *
+ * @author uuifx
+ */
+final class SharedSubtermStrategy implements RecommendationStrategy {
+    private final RecommendationStrategy strategy;
+    private Graph evaluatedGraph;
+    private long evaluatedModificationCount;
+    private int evaluatedProductId;
+    private CompressedBitmap result;
+    private DependencyFootprint resultFootprint;
+    private DependencyFootprint collectedFootprint;
+
+    /**
+     * Creates a new shared strategy.
+     *
+     * @param strategy The strategy of the subterm
+     */
+    SharedSubtermStrategy(RecommendationStrategy strategy) {
+        this.strategy = strategy;
+    }
+
+    @Override
+    public Set<Product> getRecommendations(int referenceProductId, Graph graph) {
+        return ProductBitmaps.toProducts(getRecommendationIds(referenceProductId, graph), graph);
+    }
+
+    @Override
+    public synchronized CompressedBitmap getRecommendationIds(int referenceProductId, Graph graph) {
+        CompressedBitmap remembered = getRememberedResult(referenceProductId, graph);
+        if (remembered != null) {
+            return remembered;
+        }
+        remember(referenceProductId, graph, strategy.getRecommendationIds(referenceProductId, graph), null);
+        return result;
+    }
+
+    @Override
+    public synchronized CompressedBitmap getRecommendationIds(int referenceProductId, Graph graph,
+                                                              DependencyFootprint footprint) {
+        CompressedBitmap remembered = getRememberedResult(referenceProductId, graph, footprint);
+        if (remembered != null) {
+            return remembered;
+        }
+        DependencyFootprint subtermFootprint = new DependencyFootprint();
+        remember(referenceProductId, graph,
+                strategy.getRecommendationIds(referenceProductId, graph, subtermFootprint), subtermFootprint);
+        return getRememberedResult(referenceProductId, graph, footprint);
+    }
+
+    /**
+     * Gets the wrapped strategy.
+     *
+     * @return The strategy of the subterm
+     */
+    RecommendationStrategy getStrategy() {
+        return strategy;
+    }
+
+    /**
+     * Gets the remembered result if it was computed for the current state of the graph.
+     *
+     * @param referenceProductId The ID of the reference product
+     * @param graph The product graph
+     * @return The remembered product IDs, or null if there is no valid result
+     */
+    synchronized CompressedBitmap getRememberedResult(int referenceProductId, Graph graph) {
+        if (result == null || evaluatedGraph != graph || evaluatedProductId != referenceProductId
+                || evaluatedModificationCount != graph.getModificationCount()) {
+            return null;
+        }
+        return result;
+    }
+
+    /**
+     * Gets the remembered result if it was computed for the current state of the graph together with
+     * its dependencies, and adds these dependencies to a footprint.
+     *
+     * @param referenceProductId The ID of the reference product
+     * @param graph The product graph
+     * @param footprint The footprint to add the dependencies to
+     * @return The remembered product IDs, or null if there is no valid result with known dependencies
+     */
+    synchronized CompressedBitmap getRememberedResult(int referenceProductId, Graph graph,
+                                                      DependencyFootprint footprint) {
+        CompressedBitmap remembered = getRememberedResult(referenceProductId, graph);
+        if (remembered == null || resultFootprint == null) {
+            return null;
+        }
+        // The dependencies of the subterm are the same for every occurrence
+        if (footprint != collectedFootprint) {
+            footprint.addAll(resultFootprint);
+            collectedFootprint = footprint;
+        }
+        return remembered;
+    }
+
+    /**
+     * Remembers a result computed for the current state of the graph.
+     *
+     * @param referenceProductId The ID of the reference product
+     * @param graph The product graph
+     * @param productIds The recommended product IDs
+     * @param footprint The dependencies of the result, or null if they were not recorded
+     */
+    synchronized void remember(int referenceProductId, Graph graph, CompressedBitmap productIds,
+                               DependencyFootprint footprint) {
+        result = productIds;
+        resultFootprint = footprint;
+        collectedFootprint = null;
+        evaluatedGraph = graph;
+        evaluatedProductId = referenceProductId;
+        evaluatedModificationCount = graph.getModificationCount();
+    }
+}
\ No newline at end of file
@@ -1,104 +1,191 @@
 package strategy;
 
-import model.Category;
 import model.Edge;
 import model.Graph;
 import model.Node;
 import model.Product;
 import model.RelationshipTypes;
+import util.CompressedBitmap;
+
+import java.util.ArrayList;
 import java.util.HashSet;
+import java.util.List;
+import java.util.PrimitiveIterator;
 import java.util.Set;
 
+import static parser.RecommendCommandParserConstants.DEFAULT_LEVELS;
+
 /**
  * Strategy for recommending sibling products (S1).
  * Finds products that share a common parent category with the reference product.
+ * With more than one level, it finds all products below any ancestor category up to that many levels
+ * above the reference product, including the products of nested categories.
  *
  * @author uuifx
  */
 public class SiblingProductStrategy implements RecommendationStrategy {
+    private final int levels;
+
+    /**
+     * Creates a new strategy for the siblings in the direct parent categories.
+     */
+    public SiblingProductStrategy() {
+        this(DEFAULT_LEVELS);
+    }
+
+    /**
+     * Creates a new strategy for the siblings within the given number of category levels.
+     *
+     * @param levels The number of category levels above the reference product, at least one
+     */
+    public SiblingProductStrategy(int levels) {
+        this.levels = levels;
+    }
+
+    /**
+     * Gets the number of category levels above the reference product.
+     *
+     * @return The number of category levels
+     */
+    public int getLevels() {
+        return levels;
+    }
 
     @Override
     public Set<Product> getRecommendations(int referenceProductId, Graph graph) {
-        Set<Product> recommendations = new HashSet<>();
+        return ProductBitmaps.toProducts(getRecommendationIds(referenceProductId, graph), graph);
+    }
+
+    @Override
+    public CompressedBitmap getRecommendationIds(int referenceProductId, Graph graph) {
+        CompressedBitmap siblingIds = new CompressedBitmap();
 
         // Find the reference product
-        Product referenceProduct = findProductById(referenceProductId, graph);
+        Product referenceProduct = graph.getProductById(referenceProductId);
         if (referenceProduct == null) {
-            return recommendations;
+            return siblingIds;
         }
 
-        // Find all parent categories of the reference product
-        Set<Category> parentCategories = findParentCategories(referenceProduct, graph);
+        if (levels > DEFAULT_LEVELS) {
+            return getSubtreeSiblingIds(referenceProductId, getAncestorCategories(referenceProduct, graph), graph);
+        }
 
-        // For each parent category, find all its child products
-        for (Category category : parentCategories) {
-            Set<Product> siblings = findChildProducts(category, graph);
-            siblings.remove(referenceProduct); // Exclude the reference product
-            recommendations.addAll(siblings);
+        // Combine the member products of all parent categories and exclude the reference product
+        for (Edge edge : graph.getOutgoingEdgesByRelationship(referenceProduct, RelationshipTypes.CONTAINED_IN)) {
+            CompressedBitmap memberIds = graph.getMemberProductIds(graph.getHandle(edge.getTarget()));
+            if (memberIds != null) {
+                siblingIds = siblingIds.or(memberIds);
+            }
         }
+        siblingIds.remove(referenceProductId);
+        return siblingIds;
+    }
 
-        return recommendations;
+    @Override
+    public PrimitiveIterator.OfInt iterateRecommendationIds(int referenceProductId, Graph graph) {
+        Product referenceProduct = graph.getProductById(referenceProductId);
+        if (referenceProduct == null || levels > DEFAULT_LEVELS) {
+            return getRecommendationIds(referenceProductId, graph).iterator();
+        }
+
+        // Merge the member products of all parent categories without combining their bitmaps
+        List<PrimitiveIterator.OfInt> iterators = new ArrayList<>();
+        for (Edge edge : graph.getOutgoingEdgesByRelationship(referenceProduct, RelationshipTypes.CONTAINED_IN)) {
+            CompressedBitmap memberIds = graph.getMemberProductIds(graph.getHandle(edge.getTarget()));
+            if (memberIds != null) {
+                iterators.add(memberIds.iterator());
+            }
+        }
+        return SortedIdIterators.without(SortedIdIterators.union(iterators), referenceProductId);
     }
 
-    /**
-     * Finds a product by its ID.
-     *
-     * @param productId The product ID
-     * @param graph The product graph
-     * @return The product, or null if not found
-     */
-    private Product findProductById(int productId, Graph graph) {
-        for (Product product : graph.getProducts()) {
-            if (product.getId() == productId) {
-                return product;
+    @Override
+    public CompressedBitmap getRecommendationIds(int referenceProductId, Graph graph, DependencyFootprint footprint) {
+        footprint.addProductId(referenceProductId);
+        Product referenceProduct = graph.getProductById(referenceProductId);
+        if (referenceProduct == null) {
+            return new CompressedBitmap();
+        }
+
+        // The parents of the reference product and the members of each parent
+        footprint.addRead(referenceProduct, RelationshipTypes.CONTAINED_IN);
+        if (levels == DEFAULT_LEVELS) {
+            for (Edge edge : graph.getOutgoingEdgesByRelationship(referenceProduct, RelationshipTypes.CONTAINED_IN)) {
+                footprint.addRead(edge.getTarget(), RelationshipTypes.CONTAINS);
             }
+            return getRecommendationIds(referenceProductId, graph);
         }
-        return null;
+
+        // The parents of every ancestor and the contents of every category in their subtrees
+        List<Integer> ancestors = getAncestorCategories(referenceProduct, graph);
+        List<CompressedBitmap> categoryHandles = new ArrayList<>(ancestors.size());
+        for (int ancestor : ancestors) {
+            footprint.addRead(graph.getNode(ancestor), RelationshipTypes.CONTAINED_IN);
+            categoryHandles.add(graph.getSubtreeCategoryHandles(ancestor));
+        }
+        PrimitiveIterator.OfInt iterator = CompressedBitmap.or(categoryHandles).iterator();
+        while (iterator.hasNext()) {
+            footprint.addRead(graph.getNode(iterator.nextInt()), RelationshipTypes.CONTAINS);
+        }
+        return getSubtreeSiblingIds(referenceProductId, ancestors, graph);
     }
 
     /**
-     * Finds all parent categories of a product.
+     * Combines the indexed subtrees of the ancestor categories of a product and excludes the product.
      *
-     * @param product The product
+     * @param referenceProductId The ID of the reference product
+     * @param ancestors The handles of the ancestor categories
      * @param graph The product graph
-     * @return A set of parent categories
+     * @return A new bitmap of the IDs of the products in the subtrees
      */
-    private Set<Category> findParentCategories(Product product, Graph graph) {
-        Set<Category> parents = new HashSet<>();
-
-        // Get all outgoing contained-in edges
-        Set<Edge> containedInEdges = graph.getOutgoingEdgesByRelationship(product, RelationshipTypes.CONTAINED_IN);
-
-        for (Edge edge : containedInEdges) {
-            Node target = edge.getTarget();
-            if (target.isCategory()) {
-                parents.add((Category) target);
-            }
+    private static CompressedBitmap getSubtreeSiblingIds(int referenceProductId, List<Integer> ancestors,
+                                                         Graph graph) {
+        List<CompressedBitmap> subtreeIds = new ArrayList<>(ancestors.size());
+        for (int ancestor : ancestors) {
+            subtreeIds.add(graph.getSubtreeProductIds(ancestor));
         }
-
-        return parents;
+        CompressedBitmap siblingIds = CompressedBitmap.or(subtreeIds);
+        siblingIds.remove(referenceProductId);
+        return siblingIds;
     }
 
     /**
-     * Finds all child products of a category.
+     * Finds the ancestor categories of a product up to the number of levels of this strategy.
      *
-     * @param category The category
+     * @param referenceProduct The reference product
      * @param graph The product graph
-     * @return A set of child products
+     * @return A new list of the handles of the ancestor categories, nearest first
      */
-    private Set<Product> findChildProducts(Category category, Graph graph) {
-        Set<Product> children = new HashSet<>();
-
-        // Get all outgoing contains edges
-        Set<Edge> containsEdges = graph.getOutgoingEdgesByRelationship(category, RelationshipTypes.CONTAINS);
-
-        for (Edge edge : containsEdges) {
-            Node target = edge.getTarget();
-            if (target.isProduct()) {
-                children.add((Product) target);
+    List<Integer> getAncestorCategories(Product referenceProduct, Graph graph) {
+        List<Integer> ancestors = new ArrayList<>();
+        Set<Integer> visited = new HashSet<>();
+        int levelStart = 0;
+        int levelEnd = 0;
+        for (int level = 0; level < levels; level++) {
+            // The products' parents form the first level, the parents of the previous level the next ones
+            List<Node> children = new ArrayList<>();
+            if (level == 0) {
+                children.add(referenceProduct);
+            } else {
+                for (int i = levelStart; i < levelEnd; i++) {
+                    children.add(graph.getNode(ancestors.get(i)));
+                }
+            }
+            for (Node child : children) {
+                for (Edge edge : graph.getOutgoingEdgesByRelationship(child, RelationshipTypes.CONTAINED_IN)) {
+                    int parent = graph.getHandle(edge.getTarget());
+                    if (edge.getTarget().isCategory() && visited.add(parent)) {
+                        ancestors.add(parent);
+                    }
+                }
+            }
+            levelStart = levelEnd;
+            levelEnd = ancestors.size();
+            if (levelStart == levelEnd) {
+                // No category has further parents, so the remaining levels add nothing
+                break;
             }
         }
-
-        return children;
+        return ancestors;
     }
 }
\ No newline at end of file
@@ -0,0 +1,244 @@
+package strategy;
+
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.PrimitiveIterator;
+
+/**
+ * Lazy merges of iterators over ascending product IDs.
+ * The merged iterators compute each ID only when it is requested.
+ *
+ * @author uuifx
+ */
+final class SortedIdIterators {
+
+    /**
+     * Private constructor to prevent instantiation.
+     */
+    private SortedIdIterators() {
+    }
+
+    /**
+     * Merges iterators into an iterator over the IDs returned by any of them.
+     *
+     * @param iterators The iterators over ascending IDs
+     * @return An iterator over the ascending IDs of the union, without duplicates
+     */
+    static PrimitiveIterator.OfInt union(final List<PrimitiveIterator.OfInt> iterators) {
+        return new MergeIterator() {
+            private final PeekingIterator[] operands = peeking(iterators);
+
+            @Override
+            protected boolean advance() {
+                boolean found = false;
+                for (PeekingIterator operand : operands) {
+                    if (operand.hasNext() && (!found || operand.peek() < current)) {
+                        current = operand.peek();
+                        found = true;
+                    }
+                }
+                if (found) {
+                    for (PeekingIterator operand : operands) {
+                        if (operand.hasNext() && operand.peek() == current) {
+                            operand.nextInt();
+                        }
+                    }
+                }
+                return found;
+            }
+        };
+    }
+
+    /**
+     * Merges iterators into an iterator over the IDs returned by all of them.
+     * The merge ends as soon as any iterator is exhausted.
+     *
+     * @param iterators The iterators over ascending IDs
+     * @return An iterator over the ascending IDs of the intersection
+     */
+    static PrimitiveIterator.OfInt intersection(final List<PrimitiveIterator.OfInt> iterators) {
+        return new MergeIterator() {
+            private final PeekingIterator[] operands = peeking(iterators);
+
+            @Override
+            protected boolean advance() {
+                if (!operands[0].hasNext()) {
+                    return false;
+                }
+                current = operands[0].peek();
+                int agreeing = 0;
+                int index = 0;
+                // Leapfrog: advance each iterator to the candidate until all of them agree on it
+                while (agreeing < operands.length) {
+                    PeekingIterator operand = operands[index];
+                    while (operand.hasNext() && operand.peek() < current) {
+                        operand.nextInt();
+                    }
+                    if (!operand.hasNext()) {
+                        return false;
+                    }
+                    if (operand.peek() == current) {
+                        agreeing++;
+                    } else {
+                        current = operand.peek();
+                        agreeing = 1;
+                    }
+                    index = (index + 1) % operands.length;
+                }
+                for (PeekingIterator operand : operands) {
+                    operand.nextInt();
+                }
+                return true;
+            }
+        };
+    }
+
+    /**
+     * Merges two iterators into an iterator over the IDs returned by the first but not by the second.
+     * The second iterator is only advanced as far as the IDs of the first one require.
+     *
+     * @param kept The iterator over the ascending IDs to keep
+     * @param removed The iterator over the ascending IDs to remove
+     * @return An iterator over the ascending IDs of the difference
+     */
+    static PrimitiveIterator.OfInt difference(final PrimitiveIterator.OfInt kept,
+                                              final PrimitiveIterator.OfInt removed) {
+        return new MergeIterator() {
+            private final PeekingIterator removedIds = new PeekingIterator(removed);
+
+            @Override
+            protected boolean advance() {
+                while (kept.hasNext()) {
+                    current = kept.nextInt();
+                    while (removedIds.hasNext() && removedIds.peek() < current) {
+                        removedIds.nextInt();
+                    }
+                    if (!removedIds.hasNext() || removedIds.peek() != current) {
+                        return true;
+                    }
+                }
+                return false;
+            }
+        };
+    }
+
+    /**
+     * Filters an ID from an iterator.
+     *
+     * @param iterator The iterator over ascending IDs
+     * @param excludedId The ID to leave out
+     * @return An iterator over the ascending IDs except the excluded one
+     */
+    static PrimitiveIterator.OfInt without(final PrimitiveIterator.OfInt iterator, final int excludedId) {
+        return new MergeIterator() {
+            @Override
+            protected boolean advance() {
+                while (iterator.hasNext()) {
+                    current = iterator.nextInt();
+                    if (current != excludedId) {
+                        return true;
+                    }
+                }
+                return false;
+            }
+        };
+    }
+
+    /**
+     * Wraps iterators so that their next ID can be inspected without consuming it.
+     *
+     * @param iterators The iterators to wrap
+     * @return The wrapped iterators
+     */
+    private static PeekingIterator[] peeking(List<PrimitiveIterator.OfInt> iterators) {
+        PeekingIterator[] peeking = new PeekingIterator[iterators.size()];
+        for (int i = 0; i < peeking.length; i++) {
+            peeking[i] = new PeekingIterator(iterators.get(i));
+        }
+        return peeking;
+    }
+
+    /**
+     * Iterator that finds its next ID only when it is requested.
+     */
+    private abstract static class MergeIterator implements PrimitiveIterator.OfInt {
+        /**
+         * The ID found by the last call of {@link #advance()}.
+         */
+        protected int current;
+        private boolean ready;
+        private boolean exhausted;
+
+        /**
+         * Finds the next ID and stores it in {@link #current}.
+         *
+         * @return true if there is a next ID, false otherwise
+         */
+        protected abstract boolean advance();
+
+        @Override
+        public boolean hasNext() {
+            if (!ready && !exhausted) {
+                ready = advance();
+                exhausted = !ready;
+            }
+            return ready;
+        }
+
+        @Override
+        public int nextInt() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            ready = false;
+            return current;
+        }
+    }
+
+    /**
+     * Iterator whose next ID can be inspected without consuming it.
+     */
+    private static final class PeekingIterator {
+        private final PrimitiveIterator.OfInt iterator;
+        private int next;
+        private boolean hasNext;
+
+        /**
+         * Wraps an iterator.
+         *
+         * @param iterator The iterator to wrap
+         */
+        PeekingIterator(PrimitiveIterator.OfInt iterator) {
+            this.iterator = iterator;
+            nextInt();
+        }
+
+        /**
+         * Checks whether there is a next ID.
+         *
+         * @return true if there is a next ID, false otherwise
+         */
+        boolean hasNext() {
+            return hasNext;
+        }
+
+        /**
+         * Gets the next ID without consuming it.
+         *
+         * @return The next ID
+         */
+        int peek() {
+            return next;
+        }
+
+        /**
+         * Consumes the next ID.
+         */
+        void nextInt() {
+            hasNext = iterator.hasNext();
+            if (hasNext) {
+                next = iterator.nextInt();
+            }
+        }
+    }
+}
\ No newline at end of file
@@ -0,0 +1,19 @@
+package strategy;
+
+import model.RelationshipTypes;
+
+/**
+ * Strategy for recommending suite products (S5).
+ * Finds all products the reference product is directly or indirectly part of.
+ *
+ * @author uuifx
+ */
+public class SuiteProductStrategy extends ClosureProductStrategy {
+
+    /**
+     * Creates a new suite strategy, which follows the outgoing part-of edges.
+     */
+    public SuiteProductStrategy() {
+        super(RelationshipTypes.PART_OF);
+    }
+}
\ No newline at end of file
@@ -0,0 +1,276 @@
+package strategy;
+
+import model.Edge;
+import model.Graph;
+import model.Node;
+import model.Product;
+import model.RelationshipTypes;
+import util.CompressedBitmap;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.PriorityQueue;
+
+/**
+ * Iterative depth-first traversal over edges of one relationship type.
+ * The engine keeps its stack and visited marks between traversals: a node counts as visited
+ * if its mark equals the epoch of the current traversal, so starting a new traversal
+ * only increments the epoch instead of clearing or allocating a visited set.
+ * An engine is not thread-safe; use {@link #forCurrentThread()} to get the engine of the calling thread.
+ *
+ * @author uuifx
+ */
+public class TraversalEngine {
+    private static final int INITIAL_CAPACITY = 16;
+
+    private static final ThreadLocal<TraversalEngine> ENGINES = new ThreadLocal<TraversalEngine>() {
+        @Override
+        protected TraversalEngine initialValue() {
+            return new TraversalEngine();
+        }
+    };
+
+    private int[] visitedEpochs = new int[INITIAL_CAPACITY];
+    private int[] stack = new int[INITIAL_CAPACITY];
+    private int stackSize;
+    private int epoch;
+
+    /**
+     * Gets the traversal engine of the calling thread.
+     *
+     * @return The engine of the calling thread
+     */
+    public static TraversalEngine forCurrentThread() {
+        return ENGINES.get();
+    }
+
+    /**
+     * Collects the IDs of all products reachable from a node by following edges of the given relationship
+     * type through products. The start node itself is not part of the result.
+     *
+     * @param graph The product graph
+     * @param startHandle The handle of the start node
+     * @param relationship The relationship type to follow
+     * @return A new bitmap of the reachable product IDs
+     */
+    public CompressedBitmap collectReachableProductIds(Graph graph, int startHandle, RelationshipTypes relationship) {
+        CompressedBitmap reachableIds = new CompressedBitmap();
+        begin(graph.getHandleLimit(), startHandle);
+        while (stackSize > 0) {
+            int current = stack[--stackSize];
+            for (Edge edge : graph.getOutgoingEdgesByRelationship(current, relationship)) {
+                Node target = edge.getTarget();
+                if (target.isProduct() && visit(graph.getHandle(target))) {
+                    reachableIds.add(((Product) target).getId());
+                }
+            }
+        }
+        return reachableIds;
+    }
+
+    /**
+     * Collects the products nearest to a node by following edges of the given relationship type
+     * through products. The traversal proceeds breadth-first, one distance at a time, and stops after
+     * the distance at which the limit is reached, since no product further away can rank higher.
+     * Of that last distance, a bounded heap keeps only the products that come first by name.
+     *
+     * @param graph The product graph
+     * @param startHandle The handle of the start node
+     * @param relationship The relationship type to follow
+     * @param limit The maximum number of products to collect, at least one
+     * @return A new list of at most limit products, ordered by distance and then by name
+     */
+    public List<Product> collectNearestProducts(Graph graph, int startHandle, RelationshipTypes relationship,
+                                                int limit) {
+        List<Product> nearest = new ArrayList<>();
+        PriorityQueue<Product> candidates = ProductRanking.newCandidateHeap(limit);
+        begin(graph.getHandleLimit(), startHandle);
+        // The stack serves as the queue: nodes before head are expanded, nodes after it are the next distance
+        int head = 0;
+        while (head < stackSize && nearest.size() < limit) {
+            int distanceEnd = stackSize;
+            for (; head < distanceEnd; head++) {
+                for (Edge edge : graph.getOutgoingEdgesByRelationship(stack[head], relationship)) {
+                    Node target = edge.getTarget();
+                    if (target.isProduct() && visit(graph.getHandle(target))) {
+                        ProductRanking.offer(candidates, (Product) target, limit - nearest.size());
+                    }
+                }
+            }
+            nearest.addAll(ProductRanking.drain(candidates));
+        }
+        return nearest;
+    }
+
+    /**
+     * Collects the IDs of all products reachable from each of many start nodes in a single pass.
+     * The traversal finds the strongly connected components in reverse topological order, so the
+     * products reachable from a component are computed once from those of the components it reaches
+     * and shared by all start nodes that reach it. Indexed closures are used instead of traversing
+     * further. The start nodes themselves are not part of their results.
+     *
+     * @param graph The product graph
+     * @param startHandles The handles of the start nodes, negative for nodes that do not exist
+     * @param relationship The relationship type to follow
+     * @return A new bitmap of the reachable product IDs for each start node, in the order of the start nodes
+     */
+    public CompressedBitmap[] collectReachableProductIds(Graph graph, int[] startHandles,
+                                                         RelationshipTypes relationship) {
+        int nodeLimit = graph.getHandleLimit();
+        int[] order = new int[nodeLimit];
+        int[] lowLink = new int[nodeLimit];
+        boolean[] onComponentStack = new boolean[nodeLimit];
+        int[] componentStack = new int[nodeLimit];
+        int componentStackSize = 0;
+        // For each finished node, the IDs of its component's products and of all products the component reaches
+        CompressedBitmap[] reachedIds = new CompressedBitmap[nodeLimit];
+        int[] callStack = new int[nodeLimit];
+        @SuppressWarnings({"unchecked", "rawtypes"})
+        Iterator<Edge>[] edgeIterators = new Iterator[nodeLimit];
+        int callStackSize = 0;
+        int visitCount = 0;
+
+        for (int start : startHandles) {
+            if (start < 0 || order[start] != 0) {
+                continue;
+            }
+            order[start] = ++visitCount;
+            lowLink[start] = visitCount;
+            componentStack[componentStackSize++] = start;
+            onComponentStack[start] = true;
+            edgeIterators[callStackSize] = outgoingEdges(graph, start, relationship);
+            callStack[callStackSize++] = start;
+
+            while (callStackSize > 0) {
+                int current = callStack[callStackSize - 1];
+                Iterator<Edge> edges = edgeIterators[callStackSize - 1];
+                if (edges.hasNext()) {
+                    Node target = edges.next().getTarget();
+                    if (!target.isProduct()) {
+                        continue;
+                    }
+                    int next = graph.getHandle(target);
+                    if (order[next] == 0) {
+                        order[next] = ++visitCount;
+                        lowLink[next] = visitCount;
+                        componentStack[componentStackSize++] = next;
+                        onComponentStack[next] = true;
+                        edgeIterators[callStackSize] = outgoingEdges(graph, next, relationship);
+                        callStack[callStackSize++] = next;
+                    } else if (onComponentStack[next]) {
+                        lowLink[current] = Math.min(lowLink[current], order[next]);
+                    }
+                    continue;
+                }
+
+                edgeIterators[--callStackSize] = null;
+                if (callStackSize > 0) {
+                    int caller = callStack[callStackSize - 1];
+                    lowLink[caller] = Math.min(lowLink[caller], lowLink[current]);
+                }
+                if (lowLink[current] != order[current]) {
+                    continue;
+                }
+
+                // The current node is the root of a component, which occupies the top of the component stack
+                int componentStart = componentStackSize - 1;
+                while (componentStack[componentStart] != current) {
+                    componentStart--;
+                }
+                CompressedBitmap members = new CompressedBitmap();
+                List<CompressedBitmap> parts = new ArrayList<>();
+                parts.add(members);
+                for (int i = componentStart; i < componentStackSize; i++) {
+                    int member = componentStack[i];
+                    members.add(((Product) graph.getNode(member)).getId());
+                    CompressedBitmap indexed = graph.getIndexedClosure(member, relationship);
+                    if (indexed != null) {
+                        parts.add(indexed);
+                        continue;
+                    }
+                    for (Edge edge : graph.getOutgoingEdgesByRelationship(member, relationship)) {
+                        Node target = edge.getTarget();
+                        int targetHandle = graph.getHandle(target);
+                        if (target.isProduct() && !onComponentStack[targetHandle]) {
+                            parts.add(reachedIds[targetHandle]);
+                        }
+                    }
+                }
+                CompressedBitmap componentIds = CompressedBitmap.or(parts);
+                for (int i = componentStart; i < componentStackSize; i++) {
+                    reachedIds[componentStack[i]] = componentIds;
+                    onComponentStack[componentStack[i]] = false;
+                }
+                componentStackSize = componentStart;
+            }
+        }
+
+        CompressedBitmap[] results = new CompressedBitmap[startHandles.length];
+        for (int i = 0; i < startHandles.length; i++) {
+            if (startHandles[i] < 0) {
+                results[i] = new CompressedBitmap();
+                continue;
+            }
+            results[i] = reachedIds[startHandles[i]].copy();
+            results[i].remove(((Product) graph.getNode(startHandles[i])).getId());
+        }
+        return results;
+    }
+
+    /**
+     * Gets the edges to follow from a node in a batch traversal. A node with an indexed closure
+     * is not traversed further.
+     *
+     * @param graph The product graph
+     * @param handle The handle of the node
+     * @param relationship The relationship type to follow
+     * @return An iterator over the edges to follow
+     */
+    private static Iterator<Edge> outgoingEdges(Graph graph, int handle, RelationshipTypes relationship) {
+        if (graph.getIndexedClosure(handle, relationship) != null) {
+            return Collections.<Edge>emptyIterator();
+        }
+        return graph.getOutgoingEdgesByRelationship(handle, relationship).iterator();
+    }
+
+    /**
+     * Starts a new traversal: advances the epoch, sizes the visited marks and pushes the start node.
+     *
+     * @param nodeLimit The exclusive upper bound of the node numbers of the traversed graph
+     * @param start The number of the start node
+     */
+    private void begin(int nodeLimit, int start) {
+        if (visitedEpochs.length < nodeLimit) {
+            visitedEpochs = Arrays.copyOf(visitedEpochs, Math.max(nodeLimit, 2 * visitedEpochs.length));
+        }
+        epoch++;
+        if (epoch == Integer.MAX_VALUE) {
+            // Restart the epochs before they overflow so that no stale mark can match
+            Arrays.fill(visitedEpochs, 0);
+            epoch = 1;
+        }
+        stackSize = 0;
+        visit(start);
+    }
+
+    /**
+     * Marks a node as visited in the current traversal and pushes it if it was not visited before.
+     *
+     * @param node The number of the node
+     * @return true if the node was not visited before, false otherwise
+     */
+    private boolean visit(int node) {
+        if (visitedEpochs[node] == epoch) {
+            return false;
+        }
+        visitedEpochs[node] = epoch;
+        if (stackSize == stack.length) {
+            stack = Arrays.copyOf(stack, 2 * stack.length);
+        }
+        stack[stackSize++] = node;
+        return true;
+    }
+}
\ No newline at end of file
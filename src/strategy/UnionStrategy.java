@@ -2,22 +2,25 @@ package strategy;
 
 import model.Graph;
 import model.Product;
+import util.CompressedBitmap;
 import util.Constants;
 
-import java.util.HashSet;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.PrimitiveIterator;
 import java.util.Set;
 
 /**
- * Strategy that computes the union of two other strategies.
+ * Strategy that computes the union of other strategies.
  * Each strategy is applied with its own reference product ID.
+ * The results of all strategies are merged in a single pass.
  *
  * @author uuifx
  */
-public class UnionStrategy implements RecommendationStrategy {
-    private final RecommendationStrategy strategy1;
-    private final int productId1;
-    private final RecommendationStrategy strategy2;
-    private final int productId2;
+public class UnionStrategy implements CompositeStrategy {
+    private final List<StrategyWithId> operands;
 
     /**
      * Creates a new union strategy with the given strategies and their product IDs.
@@ -30,25 +33,69 @@ public class UnionStrategy implements RecommendationStrategy {
      */
     public UnionStrategy(RecommendationStrategy strategy1, int productId1,
                          RecommendationStrategy strategy2, int productId2) {
-        if (strategy1 == null || strategy2 == null) {
+        this(Arrays.asList(new StrategyWithId(strategy1, productId1), new StrategyWithId(strategy2, productId2)));
+    }
+
+    /**
+     * Creates a new union strategy of any number of strategies with their product IDs.
+     *
+     * @param operands The strategies with their product IDs
+     * @throws IllegalArgumentException if the list or any of its strategies is null
+     */
+    public UnionStrategy(List<StrategyWithId> operands) {
+        if (operands == null) {
             throw new IllegalArgumentException(Constants.Error.STRATEGIES_MUST_NOT_BE_NULL);
         }
-        this.strategy1 = strategy1;
-        this.productId1 = productId1;
-        this.strategy2 = strategy2;
-        this.productId2 = productId2;
+        for (StrategyWithId operand : operands) {
+            if (operand == null || operand.getStrategy() == null) {
+                throw new IllegalArgumentException(Constants.Error.STRATEGIES_MUST_NOT_BE_NULL);
+            }
+        }
+        this.operands = Collections.unmodifiableList(new ArrayList<>(operands));
     }
 
     @Override
     public Set<Product> getRecommendations(int unusedProductId, Graph graph) {
+        return ProductBitmaps.toProducts(getRecommendationIds(unusedProductId, graph), graph);
+    }
+
+    @Override
+    public CompressedBitmap getRecommendationIds(int unusedProductId, Graph graph) {
         // Use the stored product IDs, not the parameter
-        Set<Product> recommendations1 = strategy1.getRecommendations(productId1, graph);
-        Set<Product> recommendations2 = strategy2.getRecommendations(productId2, graph);
+        List<CompressedBitmap> recommendations = new ArrayList<>(operands.size());
+        for (StrategyWithId operand : operands) {
+            recommendations.add(operand.getStrategy().getRecommendationIds(operand.getProductId(), graph));
+        }
+
+        return combine(recommendations);
+    }
 
-        // Compute the union
-        Set<Product> union = new HashSet<>(recommendations1);
-        union.addAll(recommendations2);
+    @Override
+    public PrimitiveIterator.OfInt iterateRecommendationIds(int unusedProductId, Graph graph) {
+        List<PrimitiveIterator.OfInt> iterators = new ArrayList<>(operands.size());
+        for (StrategyWithId operand : operands) {
+            iterators.add(operand.getStrategy().iterateRecommendationIds(operand.getProductId(), graph));
+        }
+        return SortedIdIterators.union(iterators);
+    }
+
+    @Override
+    public CompressedBitmap combine(List<CompressedBitmap> operandIds) {
+        return CompressedBitmap.or(operandIds);
+    }
+
+    @Override
+    public boolean isEmptyForEmptyFirstOperand() {
+        return false;
+    }
+
+    @Override
+    public CompressedBitmap getRecommendationIds(int unusedProductId, Graph graph, DependencyFootprint footprint) {
+        List<CompressedBitmap> recommendations = new ArrayList<>(operands.size());
+        for (StrategyWithId operand : operands) {
+            recommendations.add(operand.getStrategy().getRecommendationIds(operand.getProductId(), graph, footprint));
+        }
 
-        return union;
+        return combine(recommendations);
     }
 }
\ No newline at end of file
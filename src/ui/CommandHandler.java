@@ -7,6 +7,12 @@ import model.RelationshipTypes;
 import parser.CommandParser;
 import parser.DatabaseParser;
 import parser.RecommendCommandParser;
+import strategy.DependencyFootprint;
+import strategy.ParallelEvaluator;
+import strategy.ProductRanking;
+import strategy.QueryPlan;
+import strategy.QueryPlanner;
+import strategy.RecommendationCache;
 import strategy.RecommendationStrategy;
 import strategy.RecommendationStrategyFactory;
 import io.DotExport;
@@ -14,18 +20,29 @@ import util.Constants;
 import util.Constants.CLI;
 import util.Constants.Error;
 import util.CommandValidationUtils;
+import util.CompressedBitmap;
 import java.io.BufferedReader;
 import java.io.FileReader;
 import java.io.IOException;
 import java.util.ArrayList;
 import java.util.List;
-import java.util.Set;
+import java.util.PrimitiveIterator;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 import parser.DatabaseParserConstants;
 import static ui.CommandHandlerConstants.SUBJECT_INDEX;
 import static ui.CommandHandlerConstants.PREDICATE_INDEX;
 import static ui.CommandHandlerConstants.OBJECT_INDEX;
+import static ui.CommandHandlerConstants.BATCH_STRATEGY_INDEX;
+import static ui.CommandHandlerConstants.BATCH_FIRST_ID_INDEX;
+import static ui.CommandHandlerConstants.TOP_COMMAND_PARTS;
+import static ui.CommandHandlerConstants.TOP_LIMIT_INDEX;
+import static ui.CommandHandlerConstants.TOP_RECOMMEND_INDEX;
+import static ui.CommandHandlerConstants.PAGE_COMMAND_GROUP;
+import static ui.CommandHandlerConstants.PAGE_LIMIT_GROUP;
+import static ui.CommandHandlerConstants.PAGE_OFFSET_GROUP;
+import static parser.RecommendCommandParserConstants.COMMAND_PARTS;
+import static parser.RecommendCommandParserConstants.CONTENT_INDEX;
 
 
 
@@ -34,6 +51,9 @@ import static ui.CommandHandlerConstants.OBJECT_INDEX;
  * @author uuifx
  */
 public final class CommandHandler {
+    // Keywords are matched case-insensitively, like those of the recommend term
+    private static final Pattern PAGE_PATTERN = Pattern.compile(Constants.Regex.PAGE_REGEX, Pattern.CASE_INSENSITIVE);
+
     // Array indices for add/remove command parts
     /**
      * Private constructor to prevent instantiation.
@@ -55,19 +75,11 @@ public final class CommandHandler {
         if (filePath == null) {
             return false;  // Invalid command format, error already printed
         }
+        // Echo, validate and load the file in a single pass
         try (BufferedReader reader = new BufferedReader(new FileReader(filePath))) {
             graph.clear();
-            String line;
-            while ((line = reader.readLine()) != null) {
-                System.out.println(line);
-            }
-        } catch (IOException e) {
-            System.out.println(Error.PREFIX + Error.FAILED_READ_DATABASE + e.getMessage());
-            return false;
-        }
-        try {
             DatabaseParser parser = new DatabaseParser(graph);
-            parser.parseFile(filePath);
+            parser.parse(reader, true);
             return true;
         } catch (IOException e) {
             System.out.println(Error.PREFIX + Error.FAILED_READ_DATABASE + e.getMessage());
@@ -207,16 +219,13 @@ public final class CommandHandler {
      * @param graph The graph to get nodes from
      */
     public static void handleNodesCommand(Graph graph) {
-        Set<Node> nodes = graph.getNodes();
-        if (nodes.isEmpty()) {
+        // Nodes sorted by name (case-insensitive)
+        List<Node> sortedNodes = graph.getNodesInOrder();
+        if (sortedNodes.isEmpty()) {
             System.out.println(CLI.EMPTY);
             return;
         }
 
-
-        // Sort nodes by name (case-insensitive)
-        List<Node> sortedNodes = new ArrayList<>(nodes);
-        CommandValidationUtils.sortNodesByName(sortedNodes);
         StringBuilder sb = new StringBuilder();
         for (Node node : sortedNodes) {
             if (sb.length() > 0) {
@@ -232,33 +241,33 @@ public final class CommandHandler {
      * @param graph The graph to get edges from
      */
     public static void handleEdgesCommand(Graph graph) {
-        Set<Edge> edges = graph.getEdges();
-        if (edges.isEmpty()) {
-            return;
-        }
-
-        // Sort edges by source name, then target name, then relationship
-        List<Edge> sortedEdges = new ArrayList<>(edges);
-        CommandValidationUtils.sortEdges(sortedEdges);
-
-        for (Edge edge : sortedEdges) {
+        // Edges sorted by source name, then target name, then relationship
+        for (Edge edge : graph.getEdgesInOrder()) {
             System.out.println(edge.toString());
         }
     }
 
     /**
-     * Handles the recommend command.
+     * Handles the recommend command. A trailing LIMIT n, optionally followed by OFFSET m, prints only
+     * the n recommendations after the first m.
      * @param commandStr The command string
      * @param graph The graph to get recommendations from
      * @param recommendParser The recommend command parser to use
+     * @param cache The cache of recommendation results
+     * @param evaluator The evaluator for parallel evaluation, or null to evaluate sequentially
      */
-    public static void handleRecommendCommand(String commandStr, Graph graph, RecommendCommandParser recommendParser) {
+    public static void handleRecommendCommand(String commandStr, Graph graph, RecommendCommandParser recommendParser,
+                                              RecommendationCache cache, ParallelEvaluator evaluator) {
+        // Split off the requested page, if any
+        Matcher pageMatcher = PAGE_PATTERN.matcher(commandStr.trim());
+        boolean paged = pageMatcher.matches();
+        if (paged) {
+            commandStr = pageMatcher.group(PAGE_COMMAND_GROUP);
+        }
+
         // Parse the recommend command
         RecommendCommandParser.RecommendTerm term = recommendParser.parse(commandStr);
 
-        // Create a strategy from the term
-        RecommendationStrategy strategy = RecommendationStrategyFactory.createStrategy(term);
-
         // Find the product ID to use for the strategy
         int productId = DatabaseParserConstants.LINE_START - 1; // or another appropriate constant
         if (term instanceof RecommendCommandParser.FinalTerm) {
@@ -276,22 +285,167 @@ public final class CommandHandler {
             return;
         }
 
-        // Get recommendations
-        Set<Product> recommendations = strategy.getRecommendations(productId, graph);
-
-        // Sort recommendations by name
-        List<Product> sortedRecommendations = new ArrayList<>(recommendations);
-        CommandValidationUtils.sortProductsByName(sortedRecommendations);
+        // Get recommendations, planning and computing them only if the graph parts they depend on changed
+        // since the last identical query, and resolve their IDs only once for the final result
+        CompressedBitmap recommendationIds = cache.get(term);
+        if (recommendationIds == null) {
+            QueryPlan plan = QueryPlanner.plan(term, graph);
+            DependencyFootprint footprint = new DependencyFootprint();
+            recommendationIds = evaluator == null
+                    ? plan.getStrategy().getRecommendationIds(productId, graph, footprint)
+                    : evaluator.evaluate(plan, graph, footprint);
+            cache.put(term, recommendationIds, footprint);
+        }
+        if (paged) {
+            // Page counts beyond the largest int cannot select more products than there are
+            int limit = CommandValidationUtils.parseCappedCount(pageMatcher.group(PAGE_LIMIT_GROUP));
+            int offset = pageMatcher.group(PAGE_OFFSET_GROUP) == null
+                    ? 0 : CommandValidationUtils.parseCappedCount(pageMatcher.group(PAGE_OFFSET_GROUP));
+            printPage(recommendationIds, graph, limit, offset);
+            return;
+        }
 
         // Print recommendations
+        System.out.println(formatRecommendations(recommendationIds, graph));
+    }
+
+    /**
+     * Prints one page of recommendations in the order of the recommend command. Only the products up to the
+     * end of the page are kept and sorted.
+     * @param recommendationIds The IDs of the recommended products
+     * @param graph The graph containing the products
+     * @param limit The maximum number of products on the page
+     * @param offset The number of products before the page
+     */
+    private static void printPage(CompressedBitmap recommendationIds, Graph graph, int limit, int offset) {
+        int end = (int) Math.min(Integer.MAX_VALUE, (long) offset + limit);
+        List<Product> firstProducts = ProductRanking.selectFirstByName(recommendationIds.iterator(), graph, end);
+        System.out.println(formatProducts(firstProducts.subList(Math.min(offset, firstProducts.size()),
+                firstProducts.size())));
+    }
+
+    /**
+     * Handles the batch command, which gets the recommendations of one strategy for many reference products
+     * in a single pass and prints one line per reference product.
+     * @param commandStr The command string, consisting of the batch keyword, a strategy and product IDs
+     * @param graph The graph to get recommendations from
+     * @param recommendParser The recommend command parser used to validate the strategy and the product IDs
+     */
+    public static void handleBatchCommand(String commandStr, Graph graph, RecommendCommandParser recommendParser) {
+        String[] parts = commandStr.trim().split(Constants.Regex.COMMAND_SPLIT_REGEX);
+        if (parts.length <= BATCH_FIRST_ID_INDEX) {
+            throw new IllegalArgumentException(Error.EXPECTED_STRATEGY);
+        }
+
+        // Parse every reference product like the final term of a recommend command
+        int[] productIds = new int[parts.length - BATCH_FIRST_ID_INDEX];
+        RecommendationStrategy strategy = null;
+        for (int i = 0; i < productIds.length; i++) {
+            RecommendCommandParser.RecommendTerm term = recommendParser.parse(CLI.RECOMMEND + CLI.SPACE
+                    + parts[BATCH_STRATEGY_INDEX] + CLI.SPACE + parts[BATCH_FIRST_ID_INDEX + i]);
+            if (!(term instanceof RecommendCommandParser.FinalTerm)) {
+                throw new IllegalArgumentException(Error.EXPECTED_STRATEGY);
+            }
+            productIds[i] = ((RecommendCommandParser.FinalTerm) term).getProductId();
+            if (CommandValidationUtils.findProductById(productIds[i], graph) == null) {
+                System.out.println(Error.PREFIX + Constants.Error.PRODUCT_ID + productIds[i]
+                        + Constants.Error.NODE_NOT_FOUND);
+                return;
+            }
+            if (strategy == null) {
+                strategy = RecommendationStrategyFactory.createStrategy(term);
+            }
+        }
+
+        CompressedBitmap[] recommendationIds = strategy.getRecommendationIds(productIds, graph);
+        for (int i = 0; i < productIds.length; i++) {
+            String recommendations = formatRecommendations(recommendationIds[i], graph);
+            System.out.println(productIds[i] + CLI.BATCH_SEPARATOR
+                    + (recommendations.isEmpty() ? recommendations : CLI.SPACE + recommendations));
+        }
+    }
+
+    /**
+     * Handles the top command, which prints only the best recommendations of a recommend command.
+     * Closures (S2 to S5) are ranked by their distance from the reference product, then by name,
+     * all other recommendations by name.
+     * @param commandStr The command string, consisting of the top keyword, a limit and a recommend command
+     * @param graph The graph to get recommendations from
+     * @param recommendParser The recommend command parser to use
+     */
+    public static void handleTopCommand(String commandStr, Graph graph, RecommendCommandParser recommendParser) {
+        String[] parts = commandStr.trim().split(Constants.Regex.COMMAND_SPLIT_REGEX, TOP_COMMAND_PARTS);
+        // Limits beyond the largest int cannot select more products than there are
+        boolean numeric = parts.length >= TOP_COMMAND_PARTS
+                && parts[TOP_LIMIT_INDEX].matches(Constants.Regex.PRODUCT_ID_PATTERN);
+        int limit = numeric ? CommandValidationUtils.parseCappedCount(parts[TOP_LIMIT_INDEX]) : 0;
+        if (limit == 0) {
+            System.out.println(Error.PREFIX + Error.INVALID_LIMIT
+                    + (parts.length > TOP_LIMIT_INDEX ? parts[TOP_LIMIT_INDEX] : CLI.EMPTY));
+            return;
+        }
+        RecommendCommandParser.RecommendTerm term = recommendParser.parse(parts[TOP_RECOMMEND_INDEX]);
+
+        // Check if the product exists before proceeding
+        int productId = CommandValidationUtils.findFirstProductId(term);
+        if (CommandValidationUtils.findProductById(productId, graph) == null) {
+            System.out.println(Error.PREFIX + Constants.Error.PRODUCT_ID + productId + Constants.Error.NODE_NOT_FOUND);
+            return;
+        }
+
+        RecommendationStrategy strategy = QueryPlanner.plan(term, graph).getStrategy();
+        System.out.println(formatProducts(ProductRanking.getTopRecommendations(strategy, productId, graph, limit)));
+    }
+
+    /**
+     * Formats recommended products as their names sorted alphabetically, separated by spaces.
+     * @param recommendationIds The IDs of the recommended products
+     * @param graph The graph containing the products
+     * @return The formatted recommendations
+     */
+    private static String formatRecommendations(CompressedBitmap recommendationIds, Graph graph) {
+        // The name ranks of the products are in name order once collected, so no comparisons are needed
+        CompressedBitmap nameRanks = new CompressedBitmap();
+        PrimitiveIterator.OfInt iterator = recommendationIds.iterator();
+        while (iterator.hasNext()) {
+            nameRanks.add(graph.getNameRank(graph.getProductById(iterator.nextInt())));
+        }
+
+        List<Product> sortedRecommendations = new ArrayList<>(recommendationIds.cardinality());
+        iterator = nameRanks.iterator();
+        while (iterator.hasNext()) {
+            sortedRecommendations.add((Product) graph.getNodeByNameRank(iterator.nextInt()));
+        }
+        return formatProducts(sortedRecommendations);
+    }
+
+    /**
+     * Formats products as their names in the given order, separated by spaces.
+     * @param products The products to format
+     * @return The formatted products
+     */
+    private static String formatProducts(List<Product> products) {
         StringBuilder sb = new StringBuilder();
-        for (Product product : sortedRecommendations) {
+        for (Product product : products) {
             if (sb.length() > 0) {
                 sb.append(CLI.SPACE);
             }
             sb.append(product.toString());
         }
-        System.out.println(sb.toString());
+        return sb.toString();
+    }
+
+    /**
+     * Handles the explain command, which shows the evaluation plan of a recommend command without running it.
+     * @param commandStr The command string, consisting of the explain keyword followed by a recommend command
+     * @param graph The graph whose statistics are used for planning
+     * @param recommendParser The recommend command parser to use
+     */
+    public static void handleExplainCommand(String commandStr, Graph graph, RecommendCommandParser recommendParser) {
+        String[] parts = commandStr.trim().split(Constants.Regex.COMMAND_SPLIT_REGEX, COMMAND_PARTS);
+        RecommendCommandParser.RecommendTerm term =
+                recommendParser.parse(parts.length < COMMAND_PARTS ? null : parts[CONTENT_INDEX]);
+        System.out.println(QueryPlanner.plan(term, graph).explain());
     }
 
     /**
@@ -20,6 +20,46 @@ public final class CommandHandlerConstants {
      */
     public static final int OBJECT_INDEX = 2;
 
+    /**
+     * Index of the strategy in a batch command.
+     */
+    public static final int BATCH_STRATEGY_INDEX = 1;
+
+    /**
+     * Index of the first reference product ID in a batch command.
+     */
+    public static final int BATCH_FIRST_ID_INDEX = 2;
+
+    /**
+     * Number of parts of a top command: the keyword, the limit and the recommend command.
+     */
+    public static final int TOP_COMMAND_PARTS = 3;
+
+    /**
+     * Index of the limit in a top command.
+     */
+    public static final int TOP_LIMIT_INDEX = 1;
+
+    /**
+     * Index of the recommend command in a top command.
+     */
+    public static final int TOP_RECOMMEND_INDEX = 2;
+
+    /**
+     * Regex group of the recommend command in a paged recommend command.
+     */
+    public static final int PAGE_COMMAND_GROUP = 1;
+
+    /**
+     * Regex group of the page size in a paged recommend command.
+     */
+    public static final int PAGE_LIMIT_GROUP = 2;
+
+    /**
+     * Regex group of the number of skipped products in a paged recommend command.
+     */
+    public static final int PAGE_OFFSET_GROUP = 3;
+
     /**
      * Private constructor to prevent instantiation.
      */
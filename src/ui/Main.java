@@ -2,6 +2,8 @@ package ui;
 import parser.CommandParser;
 import parser.CommandType;
 import parser.RecommendCommandParser;
+import strategy.ParallelEvaluator;
+import strategy.RecommendationCache;
 import util.Constants;
 import util.Constants.Error;
 import java.io.IOException;
@@ -17,8 +19,11 @@ public final class Main {
     private static final Scanner SCANNER = new Scanner(System.in);
     private static final CommandParser COMMAND_PARSER = new CommandParser();
     private static final RecommendCommandParser RECOMMEND_PARSER = new RecommendCommandParser();
+    private static final RecommendationCache RECOMMENDATION_CACHE = new RecommendationCache(GRAPH);
     // Track whether a database has been loaded
     private static boolean databaseLoaded = false;
+    // Evaluator for parallel mode, or null to evaluate sequentially
+    private static ParallelEvaluator parallelEvaluator = null;
     /**
      * Private constructor to prevent instantiation.
      */
@@ -28,10 +33,15 @@ public final class Main {
 
     /**
      * Main entry point for the application.
-     * @param args Command-line arguments (not used)
+     * @param args Command-line arguments, optionally the parallel option to evaluate recommend commands in parallel
      * @throws IOException if an IO error occurs during file operations
      */
     public static void main(String[] args) throws IOException {
+        for (String arg : args) {
+            if (arg.equals(Constants.CLI.PARALLEL_OPTION)) {
+                parallelEvaluator = new ParallelEvaluator();
+            }
+        }
         boolean running = true;
         while (running) {
             String userInput = SCANNER.nextLine().trim();
@@ -84,7 +94,17 @@ public final class Main {
                     CommandHandler.handleRemoveCommand(userInput, GRAPH, COMMAND_PARSER);
                     break;
                 case RECOMMEND:
-                    CommandHandler.handleRecommendCommand(userInput, GRAPH, RECOMMEND_PARSER);
+                    CommandHandler.handleRecommendCommand(userInput, GRAPH, RECOMMEND_PARSER, RECOMMENDATION_CACHE,
+                            parallelEvaluator);
+                    break;
+                case EXPLAIN:
+                    CommandHandler.handleExplainCommand(userInput, GRAPH, RECOMMEND_PARSER);
+                    break;
+                case BATCH:
+                    CommandHandler.handleBatchCommand(userInput, GRAPH, RECOMMEND_PARSER);
+                    break;
+                case TOP:
+                    CommandHandler.handleTopCommand(userInput, GRAPH, RECOMMEND_PARSER);
                     break;
                 default:
                     break;
@@ -1,14 +1,11 @@
 package util;
 
-import model.Edge;
 import model.Graph;
 import model.Node;
 import model.Product;
 import model.RelationshipTypes;
-import io.DotExportConstants;
 import parser.DatabaseParserConstants;
 
-import java.util.List;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
@@ -80,13 +77,9 @@ public final class CommandValidationUtils {
      * @return true if a conflict exists, false otherwise
      */
     public static boolean hasConflictingProductId(int productId, String productName, Graph graph) {
-        for (Product existingProduct : graph.getProducts()) {
-            if (existingProduct.getId() == productId
-                    && !existingProduct.getLowerCaseName().equals(productName.toLowerCase())) {
-                return true;
-            }
-        }
-        return false;
+        Product existingProduct = graph.getProductById(productId);
+        return existingProduct != null
+                && !existingProduct.getName().equalsIgnoreCase(productName);
     }
 
     /**
@@ -98,12 +91,8 @@ public final class CommandValidationUtils {
      * @return true if a conflict exists
      */
     public static boolean hasConflictingProductName(String name, int id, Graph graph) {
-        for (Product product : graph.getProducts()) {
-            if (product.getLowerCaseName().equals(name.toLowerCase()) && product.getId() != id) {
-                return true;
-            }
-        }
-        return false;
+        Node existingNode = graph.getNodeByName(name);
+        return existingNode != null && existingNode.isProduct() && ((Product) existingNode).getId() != id;
     }
 
     /**
@@ -129,107 +118,6 @@ public final class CommandValidationUtils {
         return nodeStr;
     }
 
-    /**
-     * Sorts a list of nodes by their lowercase name.
-     *
-     * @param nodes The list of nodes to sort
-     */
-    public static void sortNodesByName(List<Node> nodes) {
-        for (int i = 0; i < nodes.size() - 1; i++) {
-            for (int j = 0; j < nodes.size() - i - 1; j++) {
-                if (nodes.get(j).getLowerCaseName().compareTo(
-                        nodes.get(j + 1).getLowerCaseName()) > 0) {
-                    // Swap nodes
-                    Node temp = nodes.get(j);
-                    nodes.set(j, nodes.get(j + 1));
-                    nodes.set(j + 1, temp);
-                }
-            }
-        }
-    }
-
-    /**
-     * Sorts a list of products by their lowercase name.
-     *
-     * @param products The list of products to sort
-     */
-    public static void sortProductsByName(List<Product> products) {
-        for (int i = 0; i < products.size() - 1; i++) {
-            for (int j = 0; j < products.size() - i - 1; j++) {
-                if (products.get(j).getLowerCaseName().compareTo(
-                        products.get(j + 1).getLowerCaseName()) > 0) {
-                    // Swap products
-                    Product temp = products.get(j);
-                    products.set(j, products.get(j + 1));
-                    products.set(j + 1, temp);
-                }
-            }
-        }
-    }
-
-    /**
-     * Sorts edges by source name, target name, and relationship.
-     *
-     * @param edges The list of edges to sort
-     */
-    public static void sortEdges(List<Edge> edges) {
-        for (int i = 0; i < edges.size() - 1; i++) {
-            for (int j = 0; j < edges.size() - i - 1; j++) {
-                if (compareEdges(edges.get(j), edges.get(j + 1)) > 0) {
-                    Edge temp = edges.get(j);
-                    edges.set(j, edges.get(j + 1));
-                    edges.set(j + 1, temp);
-                }
-            }
-        }
-    }
-
-
-    /**
-     * Compares two edges for sorting.
-     *
-     * @param e1 The first edge
-     * @param e2 The second edge
-     * @return Comparison result
-     */
-    private static int compareEdges(Edge e1, Edge e2) {
-        int sourceComp = e1.getSource().getLowerCaseName().compareTo(e2.getSource().getLowerCaseName());
-        if (sourceComp != 0) {
-            return sourceComp;
-        }
-        int targetComp = e1.getTarget().getLowerCaseName().compareTo(e2.getTarget().getLowerCaseName());
-        if (targetComp != 0) {
-            return targetComp;
-        }
-        // Sort by relationship according to A.2.2 order
-        return getRelationshipOrder(e1.getRelationship()) - getRelationshipOrder(e2.getRelationship());
-    }
-
-    /**
-     * Gets the order index for a relationship type based on the specification.
-     *
-     * @param relationship The relationship type
-     * @return The order index
-     */
-    private static int getRelationshipOrder(RelationshipTypes relationship) {
-        switch (relationship) {
-            case CONTAINS:
-                return DotExportConstants.CONTAINS_ORDER;
-            case CONTAINED_IN:
-                return DotExportConstants.CONTAINED_IN_ORDER;
-            case PART_OF:
-                return DotExportConstants.PART_OF_ORDER;
-            case HAS_PART:
-                return DotExportConstants.HAS_PART_ORDER;
-            case SUCCESSOR_OF:
-                return DotExportConstants.SUCCESSOR_OF_ORDER;
-            case PREDECESSOR_OF:
-                return DotExportConstants.PREDECESSOR_OF_ORDER;
-            default:
-                return DotExportConstants.DEFAULT_ORDER;
-        }
-    }
-
     /**
      * Finds a product by its ID.
      *
@@ -238,12 +126,25 @@ public final class CommandValidationUtils {
      * @return The product, or null if not found
      */
     public static Product findProductById(int productId, Graph graph) {
-        for (Product product : graph.getProducts()) {
-            if (product.getId() == productId) {
-                return product;
+        return graph.getProductById(productId);
+    }
+
+    /**
+     * Parses a count given as a sequence of decimal digits, capping it at the largest int value
+     * instead of overflowing.
+     *
+     * @param digits The digits of the count
+     * @return The count, or Integer.MAX_VALUE if it is larger
+     */
+    public static int parseCappedCount(String digits) {
+        long count = 0;
+        for (int i = 0; i < digits.length(); i++) {
+            count = count * 10 + Character.digit(digits.charAt(i), 10);
+            if (count > Integer.MAX_VALUE) {
+                return Integer.MAX_VALUE;
             }
         }
-        return null;
+        return (int) count;
     }
 
     /**
@@ -271,6 +172,14 @@ public final class CommandValidationUtils {
                 return leftId;
             }
             return findFirstProductId(unionTerm.getRight());
+        } else if (term instanceof parser.RecommendCommandParser.ExceptTerm) {
+            parser.RecommendCommandParser.ExceptTerm exceptTerm =
+                    (parser.RecommendCommandParser.ExceptTerm) term;
+            int leftId = findFirstProductId(exceptTerm.getLeft());
+            if (leftId != 0) {
+                return leftId;
+            }
+            return findFirstProductId(exceptTerm.getRight());
         }
         return 0;
     }
@@ -0,0 +1,933 @@
+package util;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.PrimitiveIterator;
+
+/**
+ * Compressed bitmap of non-negative int values, organized like a Roaring bitmap.
+ * The values are split by their upper 16 bits into chunks; every chunk stores its lower 16 bits
+ * in the cheapest of three containers: a sorted array for sparse chunks, a 65536-bit bitmap
+ * for dense chunks, or a list of runs for chunks made of long consecutive ranges.
+ * Set operations combine chunks pairwise and work on whole 64-bit words where a chunk is dense.
+ *
+ * @author uuifx
+ */
+public final class CompressedBitmap {
+    private static final int CHUNK_BITS = 16;
+    private static final int LOW_MASK = 0xFFFF;
+    private static final int WORD_COUNT = 1024;
+    private static final int WORD_SHIFT = 6;
+    private static final int MAX_ARRAY_CARDINALITY = 4096;
+    private static final int BITMAP_BYTES = 8 * WORD_COUNT;
+    private static final int CONTAINER_OVERHEAD_BYTES = 16;
+    private static final int INITIAL_CAPACITY = 4;
+
+    private char[] keys;
+    private Container[] containers;
+    private int size;
+
+    /**
+     * Creates a new empty bitmap.
+     */
+    public CompressedBitmap() {
+        this(INITIAL_CAPACITY);
+    }
+
+    /**
+     * Creates a new empty bitmap with room for the given number of chunks.
+     *
+     * @param capacity The initial number of chunks
+     */
+    private CompressedBitmap(int capacity) {
+        keys = new char[Math.max(capacity, 1)];
+        containers = new Container[Math.max(capacity, 1)];
+    }
+
+    /**
+     * Adds a value to the bitmap.
+     *
+     * @param value The non-negative value to add
+     * @return true if the value was added, false if it was already present
+     */
+    public boolean add(int value) {
+        char key = highBits(value);
+        int position = findChunk(key);
+        if (position >= 0) {
+            Container container = containers[position];
+            int before = container.cardinality();
+            containers[position] = container.add(lowBits(value));
+            return containers[position].cardinality() != before;
+        }
+        insertChunk(-position - 1, key, new ArrayContainer().add(lowBits(value)));
+        return true;
+    }
+
+    /**
+     * Removes a value from the bitmap.
+     *
+     * @param value The value to remove
+     * @return true if the value was removed, false if it was not present
+     */
+    public boolean remove(int value) {
+        int position = findChunk(highBits(value));
+        if (position < 0) {
+            return false;
+        }
+        Container container = containers[position];
+        int before = container.cardinality();
+        container = container.remove(lowBits(value));
+        if (container.cardinality() == 0) {
+            removeChunk(position);
+        } else {
+            containers[position] = container;
+        }
+        return container.cardinality() != before;
+    }
+
+    /**
+     * Checks if the bitmap contains a value.
+     *
+     * @param value The value to check
+     * @return true if the value is present, false otherwise
+     */
+    public boolean contains(int value) {
+        int position = findChunk(highBits(value));
+        return position >= 0 && containers[position].contains(lowBits(value));
+    }
+
+    /**
+     * Gets the number of values in the bitmap.
+     *
+     * @return The cardinality
+     */
+    public int cardinality() {
+        int cardinality = 0;
+        for (int i = 0; i < size; i++) {
+            cardinality += containers[i].cardinality();
+        }
+        return cardinality;
+    }
+
+    /**
+     * Checks if the bitmap contains no values.
+     *
+     * @return true if the bitmap is empty, false otherwise
+     */
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * Estimates the memory used by the bitmap.
+     *
+     * @return The estimated size in bytes
+     */
+    public long getSizeInBytes() {
+        long bytes = CONTAINER_OVERHEAD_BYTES + 2L * keys.length;
+        for (int i = 0; i < size; i++) {
+            bytes += containers[i].sizeInBytes();
+        }
+        return bytes;
+    }
+
+    /**
+     * Computes the union of this bitmap and another one.
+     *
+     * @param other The other bitmap
+     * @return A new bitmap with all values of both bitmaps
+     */
+    public CompressedBitmap or(CompressedBitmap other) {
+        CompressedBitmap result = new CompressedBitmap(size + other.size);
+        int i = 0;
+        int j = 0;
+        while (i < size && j < other.size) {
+            if (keys[i] < other.keys[j]) {
+                result.appendChunk(keys[i], containers[i++].copy());
+            } else if (keys[i] > other.keys[j]) {
+                result.appendChunk(other.keys[j], other.containers[j++].copy());
+            } else {
+                result.appendChunk(keys[i], containers[i++].or(other.containers[j++]));
+            }
+        }
+        while (i < size) {
+            result.appendChunk(keys[i], containers[i++].copy());
+        }
+        while (j < other.size) {
+            result.appendChunk(other.keys[j], other.containers[j++].copy());
+        }
+        return result;
+    }
+
+    /**
+     * Computes the union of any number of bitmaps in a single pass over their chunks.
+     * Chunks present in only one bitmap are copied; chunks present in several bitmaps are
+     * merged word by word into one accumulator.
+     *
+     * @param bitmaps The bitmaps
+     * @return A new bitmap with all values of all bitmaps
+     */
+    public static CompressedBitmap or(List<CompressedBitmap> bitmaps) {
+        CompressedBitmap result = new CompressedBitmap();
+        int[] positions = new int[bitmaps.size()];
+        while (true) {
+            // Find the smallest chunk key not merged yet
+            int key = -1;
+            for (int i = 0; i < positions.length; i++) {
+                CompressedBitmap bitmap = bitmaps.get(i);
+                if (positions[i] < bitmap.size && (key < 0 || bitmap.keys[positions[i]] < key)) {
+                    key = bitmap.keys[positions[i]];
+                }
+            }
+            if (key < 0) {
+                return result;
+            }
+
+            Container single = null;
+            long[] words = null;
+            for (int i = 0; i < positions.length; i++) {
+                CompressedBitmap bitmap = bitmaps.get(i);
+                if (positions[i] < bitmap.size && bitmap.keys[positions[i]] == key) {
+                    Container container = bitmap.containers[positions[i]++];
+                    if (single == null) {
+                        single = container;
+                    } else {
+                        if (words == null) {
+                            words = single.toWords();
+                        }
+                        container.orInto(words);
+                    }
+                }
+            }
+            result.appendChunk((char) key, words == null ? single.copy() : fromWords(words));
+        }
+    }
+
+    /**
+     * Computes the intersection of this bitmap and another one.
+     *
+     * @param other The other bitmap
+     * @return A new bitmap with the values present in both bitmaps
+     */
+    public CompressedBitmap and(CompressedBitmap other) {
+        CompressedBitmap result = new CompressedBitmap(Math.min(size, other.size));
+        int i = 0;
+        int j = 0;
+        while (i < size && j < other.size) {
+            if (keys[i] < other.keys[j]) {
+                i++;
+            } else if (keys[i] > other.keys[j]) {
+                j++;
+            } else {
+                Container container = containers[i++].and(other.containers[j++]);
+                if (container.cardinality() > 0) {
+                    result.appendChunk(keys[i - 1], container);
+                }
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Computes the difference of this bitmap and another one.
+     *
+     * @param other The bitmap whose values are removed
+     * @return A new bitmap with the values of this bitmap that are not in the other one
+     */
+    public CompressedBitmap andNot(CompressedBitmap other) {
+        CompressedBitmap result = new CompressedBitmap(size);
+        int j = 0;
+        for (int i = 0; i < size; i++) {
+            while (j < other.size && other.keys[j] < keys[i]) {
+                j++;
+            }
+            Container container = j < other.size && other.keys[j] == keys[i]
+                    ? containers[i].andNot(other.containers[j])
+                    : containers[i].copy();
+            if (container.cardinality() > 0) {
+                result.appendChunk(keys[i], container);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Gets an iterator over the values in ascending order.
+     *
+     * @return The iterator
+     */
+    public PrimitiveIterator.OfInt iterator() {
+        return new PrimitiveIterator.OfInt() {
+            private int chunk = 0;
+            private int[] buffer = new int[0];
+            private int bufferSize = 0;
+            private int bufferPosition = 0;
+
+            @Override
+            public boolean hasNext() {
+                while (bufferPosition == bufferSize && chunk < size) {
+                    int high = keys[chunk] << CHUNK_BITS;
+                    Container container = containers[chunk++];
+                    if (buffer.length < container.cardinality()) {
+                        buffer = new int[container.cardinality()];
+                    }
+                    bufferSize = container.fill(buffer, high);
+                    bufferPosition = 0;
+                }
+                return bufferPosition < bufferSize;
+            }
+
+            @Override
+            public int nextInt() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                return buffer[bufferPosition++];
+            }
+        };
+    }
+
+    /**
+     * Gets the values of the bitmap in ascending order.
+     *
+     * @return A new array of the values
+     */
+    public int[] toArray() {
+        int[] values = new int[cardinality()];
+        int position = 0;
+        for (int i = 0; i < size; i++) {
+            Container container = containers[i];
+            int[] chunkValues = new int[container.cardinality()];
+            int count = container.fill(chunkValues, keys[i] << CHUNK_BITS);
+            System.arraycopy(chunkValues, 0, values, position, count);
+            position += count;
+        }
+        return values;
+    }
+
+    /**
+     * Creates a copy of the bitmap.
+     *
+     * @return A new bitmap with the same values
+     */
+    public CompressedBitmap copy() {
+        CompressedBitmap result = new CompressedBitmap(size);
+        for (int i = 0; i < size; i++) {
+            result.appendChunk(keys[i], containers[i].copy());
+        }
+        return result;
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        if (this == obj) {
+            return true;
+        }
+        if (obj == null || getClass() != obj.getClass()) {
+            return false;
+        }
+        CompressedBitmap other = (CompressedBitmap) obj;
+        return Arrays.equals(toArray(), other.toArray());
+    }
+
+    @Override
+    public int hashCode() {
+        return Arrays.hashCode(toArray());
+    }
+
+    @Override
+    public String toString() {
+        return Arrays.toString(toArray());
+    }
+
+    /**
+     * Gets the chunk key of a value.
+     *
+     * @param value The value
+     * @return The upper 16 bits of the value
+     */
+    private static char highBits(int value) {
+        return (char) (value >>> CHUNK_BITS);
+    }
+
+    /**
+     * Gets the position of a value inside its chunk.
+     *
+     * @param value The value
+     * @return The lower 16 bits of the value
+     */
+    private static char lowBits(int value) {
+        return (char) (value & LOW_MASK);
+    }
+
+    /**
+     * Finds a chunk by its key.
+     *
+     * @param key The chunk key
+     * @return The position of the chunk, or (-(insertion point) - 1) if there is no such chunk
+     */
+    private int findChunk(char key) {
+        return Arrays.binarySearch(keys, 0, size, key);
+    }
+
+    /**
+     * Inserts a chunk at the given position.
+     *
+     * @param position The position
+     * @param key The chunk key
+     * @param container The container of the chunk
+     */
+    private void insertChunk(int position, char key, Container container) {
+        ensureCapacity(size + 1);
+        System.arraycopy(keys, position, keys, position + 1, size - position);
+        System.arraycopy(containers, position, containers, position + 1, size - position);
+        keys[position] = key;
+        containers[position] = container;
+        size++;
+    }
+
+    /**
+     * Appends a chunk whose key is greater than all present keys.
+     *
+     * @param key The chunk key
+     * @param container The container of the chunk
+     */
+    private void appendChunk(char key, Container container) {
+        ensureCapacity(size + 1);
+        keys[size] = key;
+        containers[size] = container;
+        size++;
+    }
+
+    /**
+     * Removes the chunk at the given position.
+     *
+     * @param position The position
+     */
+    private void removeChunk(int position) {
+        System.arraycopy(keys, position + 1, keys, position, size - position - 1);
+        System.arraycopy(containers, position + 1, containers, position, size - position - 1);
+        size--;
+        containers[size] = null;
+    }
+
+    /**
+     * Grows the chunk arrays if needed.
+     *
+     * @param capacity The required number of chunks
+     */
+    private void ensureCapacity(int capacity) {
+        if (capacity > keys.length) {
+            int newCapacity = Math.max(capacity, 2 * keys.length);
+            keys = Arrays.copyOf(keys, newCapacity);
+            containers = Arrays.copyOf(containers, newCapacity);
+        }
+    }
+
+    /**
+     * Chooses the cheapest container for the lower 16 bits given as bitmap words.
+     *
+     * @param words The 1024 words of the chunk
+     * @return The container
+     */
+    private static Container fromWords(long[] words) {
+        int cardinality = 0;
+        int runs = 0;
+        long previousHighBit = 0;
+        for (long word : words) {
+            cardinality += Long.bitCount(word);
+            // A run starts at every set bit whose lower neighbor is not set
+            runs += Long.bitCount(word & ~((word << 1) | previousHighBit));
+            previousHighBit = word >>> (Long.SIZE - 1);
+        }
+        int arrayBytes = 2 * cardinality;
+        int runBytes = RunContainer.BYTES_PER_RUN * runs;
+        if (runBytes < Math.min(arrayBytes, BITMAP_BYTES)) {
+            return RunContainer.fromWords(words, runs);
+        }
+        if (cardinality <= MAX_ARRAY_CARDINALITY) {
+            return ArrayContainer.fromWords(words, cardinality);
+        }
+        return new BitmapContainer(words, cardinality);
+    }
+
+    /**
+     * Storage of the lower 16 bits of the values of one chunk.
+     * Mutating operations return the container that holds the result, which may be a new one.
+     */
+    private abstract static class Container {
+        /**
+         * Gets the number of values in the container.
+         *
+         * @return The cardinality
+         */
+        abstract int cardinality();
+
+        /**
+         * Checks if the container contains a value.
+         *
+         * @param low The lower 16 bits of the value
+         * @return true if present, false otherwise
+         */
+        abstract boolean contains(char low);
+
+        /**
+         * Adds a value.
+         *
+         * @param low The lower 16 bits of the value
+         * @return The container holding the result
+         */
+        abstract Container add(char low);
+
+        /**
+         * Removes a value.
+         *
+         * @param low The lower 16 bits of the value
+         * @return The container holding the result
+         */
+        abstract Container remove(char low);
+
+        /**
+         * Writes the full values of the container in ascending order.
+         *
+         * @param target The array to write to
+         * @param high The upper 16 bits of the chunk, already shifted into place
+         * @return The number of values written
+         */
+        abstract int fill(int[] target, int high);
+
+        /**
+         * Gets the container as 1024 bitmap words.
+         *
+         * @return A new array of words
+         */
+        abstract long[] toWords();
+
+        /**
+         * Estimates the memory used by the container.
+         *
+         * @return The estimated size in bytes
+         */
+        abstract int sizeInBytes();
+
+        /**
+         * Creates a copy of the container.
+         *
+         * @return The copy
+         */
+        abstract Container copy();
+
+        /**
+         * Computes the union with another container.
+         *
+         * @param other The other container
+         * @return A new container with the union
+         */
+        Container or(Container other) {
+            long[] words = toWords();
+            other.orInto(words);
+            return fromWords(words);
+        }
+
+        /**
+         * Computes the intersection with another container.
+         *
+         * @param other The other container
+         * @return A new container with the intersection
+         */
+        Container and(Container other) {
+            if (other instanceof ArrayContainer) {
+                return other.and(this);
+            }
+            long[] words = toWords();
+            long[] otherWords = other.toWords();
+            for (int i = 0; i < WORD_COUNT; i++) {
+                words[i] &= otherWords[i];
+            }
+            return fromWords(words);
+        }
+
+        /**
+         * Computes the difference to another container.
+         *
+         * @param other The container whose values are removed
+         * @return A new container with the difference
+         */
+        Container andNot(Container other) {
+            long[] words = toWords();
+            if (other instanceof ArrayContainer) {
+                // Clear the few values of a sparse container instead of expanding it
+                ArrayContainer array = (ArrayContainer) other;
+                for (int i = 0; i < array.cardinality; i++) {
+                    words[array.values[i] >>> WORD_SHIFT] &= ~(1L << array.values[i]);
+                }
+                return fromWords(words);
+            }
+            long[] otherWords = other.toWords();
+            for (int i = 0; i < WORD_COUNT; i++) {
+                words[i] &= ~otherWords[i];
+            }
+            return fromWords(words);
+        }
+
+        /**
+         * Sets the bits of all values of the container in the given words.
+         *
+         * @param words The 1024 words to update
+         */
+        void orInto(long[] words) {
+            long[] own = toWords();
+            for (int i = 0; i < WORD_COUNT; i++) {
+                words[i] |= own[i];
+            }
+        }
+    }
+
+    /**
+     * Container for sparse chunks, storing the values as a sorted array.
+     */
+    private static final class ArrayContainer extends Container {
+        private char[] values;
+        private int cardinality;
+
+        ArrayContainer() {
+            this(new char[INITIAL_CAPACITY], 0);
+        }
+
+        ArrayContainer(char[] values, int cardinality) {
+            this.values = values;
+            this.cardinality = cardinality;
+        }
+
+        static ArrayContainer fromWords(long[] words, int cardinality) {
+            char[] values = new char[cardinality];
+            int position = 0;
+            for (int i = 0; i < WORD_COUNT; i++) {
+                long word = words[i];
+                while (word != 0) {
+                    values[position++] = (char) ((i << WORD_SHIFT) + Long.numberOfTrailingZeros(word));
+                    word &= word - 1;
+                }
+            }
+            return new ArrayContainer(values, cardinality);
+        }
+
+        @Override
+        int cardinality() {
+            return cardinality;
+        }
+
+        @Override
+        boolean contains(char low) {
+            return Arrays.binarySearch(values, 0, cardinality, low) >= 0;
+        }
+
+        @Override
+        Container add(char low) {
+            int position = Arrays.binarySearch(values, 0, cardinality, low);
+            if (position >= 0) {
+                return this;
+            }
+            if (cardinality == MAX_ARRAY_CARDINALITY) {
+                long[] words = toWords();
+                words[low >>> WORD_SHIFT] |= 1L << low;
+                return new BitmapContainer(words, cardinality + 1);
+            }
+            int insertion = -position - 1;
+            if (cardinality == values.length) {
+                values = Arrays.copyOf(values, Math.min(2 * values.length, MAX_ARRAY_CARDINALITY));
+            }
+            System.arraycopy(values, insertion, values, insertion + 1, cardinality - insertion);
+            values[insertion] = low;
+            cardinality++;
+            return this;
+        }
+
+        @Override
+        Container remove(char low) {
+            int position = Arrays.binarySearch(values, 0, cardinality, low);
+            if (position >= 0) {
+                System.arraycopy(values, position + 1, values, position, cardinality - position - 1);
+                cardinality--;
+            }
+            return this;
+        }
+
+        @Override
+        int fill(int[] target, int high) {
+            for (int i = 0; i < cardinality; i++) {
+                target[i] = high | values[i];
+            }
+            return cardinality;
+        }
+
+        @Override
+        long[] toWords() {
+            long[] words = new long[WORD_COUNT];
+            orInto(words);
+            return words;
+        }
+
+        @Override
+        void orInto(long[] words) {
+            for (int i = 0; i < cardinality; i++) {
+                words[values[i] >>> WORD_SHIFT] |= 1L << values[i];
+            }
+        }
+
+        @Override
+        Container or(Container other) {
+            if (!(other instanceof ArrayContainer)
+                    || cardinality + other.cardinality() > MAX_ARRAY_CARDINALITY) {
+                return super.or(other);
+            }
+            ArrayContainer array = (ArrayContainer) other;
+            char[] merged = new char[cardinality + array.cardinality];
+            int count = 0;
+            int i = 0;
+            int j = 0;
+            while (i < cardinality && j < array.cardinality) {
+                char a = values[i];
+                char b = array.values[j];
+                if (a <= b) {
+                    i++;
+                }
+                if (b <= a) {
+                    j++;
+                }
+                merged[count++] = a <= b ? a : b;
+            }
+            while (i < cardinality) {
+                merged[count++] = values[i++];
+            }
+            while (j < array.cardinality) {
+                merged[count++] = array.values[j++];
+            }
+            return new ArrayContainer(merged, count);
+        }
+
+        @Override
+        Container and(Container other) {
+            if (other instanceof ArrayContainer && other.cardinality() < cardinality) {
+                return other.and(this);
+            }
+            // Probe the smaller array against the other container
+            char[] result = new char[cardinality];
+            int count = 0;
+            for (int i = 0; i < cardinality; i++) {
+                if (other.contains(values[i])) {
+                    result[count++] = values[i];
+                }
+            }
+            return new ArrayContainer(result, count);
+        }
+
+        @Override
+        Container andNot(Container other) {
+            char[] result = new char[cardinality];
+            int count = 0;
+            for (int i = 0; i < cardinality; i++) {
+                if (!other.contains(values[i])) {
+                    result[count++] = values[i];
+                }
+            }
+            return new ArrayContainer(result, count);
+        }
+
+        @Override
+        int sizeInBytes() {
+            return CONTAINER_OVERHEAD_BYTES + 2 * values.length;
+        }
+
+        @Override
+        Container copy() {
+            return new ArrayContainer(Arrays.copyOf(values, Math.max(cardinality, 1)), cardinality);
+        }
+    }
+
+    /**
+     * Container for dense chunks, storing one bit per possible value.
+     */
+    private static final class BitmapContainer extends Container {
+        private final long[] words;
+        private int cardinality;
+
+        BitmapContainer(long[] words, int cardinality) {
+            this.words = words;
+            this.cardinality = cardinality;
+        }
+
+        @Override
+        int cardinality() {
+            return cardinality;
+        }
+
+        @Override
+        boolean contains(char low) {
+            return (words[low >>> WORD_SHIFT] & (1L << low)) != 0;
+        }
+
+        @Override
+        Container add(char low) {
+            if (!contains(low)) {
+                words[low >>> WORD_SHIFT] |= 1L << low;
+                cardinality++;
+            }
+            return this;
+        }
+
+        @Override
+        Container remove(char low) {
+            if (!contains(low)) {
+                return this;
+            }
+            words[low >>> WORD_SHIFT] &= ~(1L << low);
+            cardinality--;
+            return cardinality <= MAX_ARRAY_CARDINALITY ? ArrayContainer.fromWords(words, cardinality) : this;
+        }
+
+        @Override
+        int fill(int[] target, int high) {
+            int count = 0;
+            for (int i = 0; i < WORD_COUNT; i++) {
+                long word = words[i];
+                while (word != 0) {
+                    target[count++] = high | ((i << WORD_SHIFT) + Long.numberOfTrailingZeros(word));
+                    word &= word - 1;
+                }
+            }
+            return count;
+        }
+
+        @Override
+        long[] toWords() {
+            return words.clone();
+        }
+
+        @Override
+        void orInto(long[] target) {
+            for (int i = 0; i < WORD_COUNT; i++) {
+                target[i] |= words[i];
+            }
+        }
+
+        @Override
+        int sizeInBytes() {
+            return CONTAINER_OVERHEAD_BYTES + BITMAP_BYTES;
+        }
+
+        @Override
+        Container copy() {
+            return new BitmapContainer(words.clone(), cardinality);
+        }
+    }
+
+    /**
+     * Container for chunks made of consecutive ranges, storing the start and length of every run.
+     */
+    private static final class RunContainer extends Container {
+        static final int BYTES_PER_RUN = 4;
+
+        private final char[] starts;
+        private final char[] lengths;
+        private final int cardinality;
+
+        RunContainer(char[] starts, char[] lengths, int cardinality) {
+            this.starts = starts;
+            this.lengths = lengths;
+            this.cardinality = cardinality;
+        }
+
+        static RunContainer fromWords(long[] words, int runs) {
+            char[] starts = new char[runs];
+            char[] lengths = new char[runs];
+            int run = -1;
+            int cardinality = 0;
+            int previous = -2;
+            for (int i = 0; i < WORD_COUNT; i++) {
+                long word = words[i];
+                while (word != 0) {
+                    int value = (i << WORD_SHIFT) + Long.numberOfTrailingZeros(word);
+                    if (value != previous + 1) {
+                        starts[++run] = (char) value;
+                    } else {
+                        lengths[run]++;
+                    }
+                    previous = value;
+                    cardinality++;
+                    word &= word - 1;
+                }
+            }
+            return new RunContainer(starts, lengths, cardinality);
+        }
+
+        @Override
+        int cardinality() {
+            return cardinality;
+        }
+
+        @Override
+        boolean contains(char low) {
+            int position = Arrays.binarySearch(starts, low);
+            if (position >= 0) {
+                return true;
+            }
+            int run = -position - 2;
+            return run >= 0 && low - starts[run] <= lengths[run];
+        }
+
+        @Override
+        Container add(char low) {
+            if (contains(low)) {
+                return this;
+            }
+            long[] words = toWords();
+            words[low >>> WORD_SHIFT] |= 1L << low;
+            return CompressedBitmap.fromWords(words);
+        }
+
+        @Override
+        Container remove(char low) {
+            if (!contains(low)) {
+                return this;
+            }
+            long[] words = toWords();
+            words[low >>> WORD_SHIFT] &= ~(1L << low);
+            return CompressedBitmap.fromWords(words);
+        }
+
+        @Override
+        int fill(int[] target, int high) {
+            int count = 0;
+            for (int run = 0; run < starts.length; run++) {
+                for (int value = starts[run]; value <= starts[run] + lengths[run]; value++) {
+                    target[count++] = high | value;
+                }
+            }
+            return count;
+        }
+
+        @Override
+        long[] toWords() {
+            long[] words = new long[WORD_COUNT];
+            for (int run = 0; run < starts.length; run++) {
+                for (int value = starts[run]; value <= starts[run] + lengths[run]; value++) {
+                    words[value >>> WORD_SHIFT] |= 1L << value;
+                }
+            }
+            return words;
+        }
+
+        @Override
+        int sizeInBytes() {
+            return CONTAINER_OVERHEAD_BYTES + BYTES_PER_RUN * starts.length;
+        }
+
+        @Override
+        Container copy() {
+            // Runs are never modified in place
+            return this;
+        }
+    }
+}
\ No newline at end of file
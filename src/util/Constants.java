@@ -50,6 +50,26 @@ public final class Constants {
          * Command name for exporting the graph in DOT notation.
          */
         public static final String EXPORT = "export";
+        /**
+         * Command name for showing the evaluation plan of a recommend command.
+         */
+        public static final String EXPLAIN = "explain";
+        /**
+         * Command name for getting the best recommendations of a recommend command.
+         */
+        public static final String TOP = "top";
+        /**
+         * Command name for getting recommendations of one strategy for many reference products.
+         */
+        public static final String BATCH = "batch";
+        /**
+         * Separator between a reference product ID and its recommendations in the output of the batch command.
+         */
+        public static final String BATCH_SEPARATOR = ":";
+        /**
+         * Program argument that enables the parallel evaluation of recommend commands.
+         */
+        public static final String PARALLEL_OPTION = "--parallel";
         /**
          * A single space character used for formatting output.
          */
@@ -135,7 +155,15 @@ public final class Constants {
         /**
          * Error message for when a strategy specification is expected.
          */
-        public static final String EXPECTED_STRATEGY = "Expected strategy (S1, S2, or S3)";
+        public static final String EXPECTED_STRATEGY = "Expected strategy (S1, S2, S3, S4, or S5)";
+        /**
+         * Error message for when the number of recommendations to show is not a positive number.
+         */
+        public static final String INVALID_LIMIT = "Limit must be a positive number: ";
+        /**
+         * Error message for when the levels keyword of a sibling term is not followed by a positive number.
+         */
+        public static final String EXPECTED_LEVELS = "Expected positive number of levels after " + Strategy.LEVELS;
         /**
          * Error message for when a product ID is expected after a strategy.
          */
@@ -216,6 +244,10 @@ public final class Constants {
          * Error message for null strategies.
          */
         public static final String STRATEGIES_MUST_NOT_BE_NULL = "Strategies must not be null";
+        /**
+         * Error message for an intersection without strategies.
+         */
+        public static final String STRATEGIES_MUST_NOT_BE_EMPTY = "Strategies must not be empty";
         /**
          * Error message for null term.
          */
@@ -265,6 +297,12 @@ public final class Constants {
          * Captures subject, predicate, and object as groups.
          */
         public static final String LINE_REGEX = "\\s*(.+?)\\s+" + PREDICATE_REGEX + "\\s+(.+?)\\s*";
+        /**
+         * Regular expression for a recommend command that requests one page of its result,
+         * capturing the recommend command, the page size and the optional number of skipped products.
+         */
+        public static final String PAGE_REGEX = "(.+?)\\s+LIMIT\\s+(" + PRODUCT_ID_PATTERN + ")"
+                + "(?:\\s+OFFSET\\s+(" + PRODUCT_ID_PATTERN + "))?";
         /**
          * Regular expression for splitting command strings on whitespace.
          */
@@ -320,6 +358,37 @@ public final class Constants {
         private Dot() {
         }
     }
+    /**
+     * Constants related to the query plan output.
+     * This class contains strings used to format the plan shown by the explain command.
+     */
+    public static final class Plan {
+        /**
+         * Indentation per level of the plan tree.
+         */
+        public static final String INDENT = "  ";
+        /**
+         * Opening of the estimates of a plan step, followed by the estimated number of products.
+         */
+        public static final String ROWS_START = " [rows=";
+        /**
+         * Separator before the estimated cost of a plan step.
+         */
+        public static final String COST_SEPARATOR = ", cost=";
+        /**
+         * Closing of the estimates of a plan step.
+         */
+        public static final String ESTIMATES_END = "]";
+        /**
+         * Marker of a plan step that reuses the result of an identical step evaluated before.
+         */
+        public static final String REUSED = " (reused)";
+        /**
+         * Private constructor to prevent instantiation of this utility class.
+         */
+        private Plan() {
+        }
+    }
     /**
      * Constants related to graph relationships.
      * This class contains the string names of the six relationship types supported in the system.
@@ -381,6 +450,21 @@ public final class Constants {
          * Recommends products that are direct or indirect predecessors of the reference product.
          */
         public static final String S3 = "S3";
+        /**
+         * Strategy code for the component products strategy (S4).
+         * Recommends products that are direct or indirect parts of the reference product.
+         */
+        public static final String S4 = "S4";
+        /**
+         * Strategy code for the suite products strategy (S5).
+         * Recommends products that the reference product is a direct or indirect part of.
+         */
+        public static final String S5 = "S5";
+        /**
+         * Keyword for the number of category levels of a sibling term.
+         * Extends the siblings to all products below the ancestor categories up to that many levels above.
+         */
+        public static final String LEVELS = "LEVELS";
         /**
          * Keyword for the intersection operation in composite recommendation strategies.
          * Returns only products recommended by both constituent strategies.
@@ -391,6 +475,11 @@ public final class Constants {
          * Returns all products recommended by either constituent strategy.
          */
         public static final String UNION = "UNION";
+        /**
+         * Keyword for the difference operation in composite recommendation strategies.
+         * Returns the products recommended by the first constituent strategy but not by the second.
+         */
+        public static final String EXCEPT = "EXCEPT";
         /**
          * Private constructor to prevent instantiation of this utility class.
          */